@@ -0,0 +1,68 @@
+package bguspl.set;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Creates game environments for the benchmarks: no user interface, no logging and no table delays.
+ */
+public class BenchmarkEnv {
+
+    /**
+     * Creates the configuration properties shared by all benchmarks.
+     *
+     * @param featureCount - the number of features on the cards.
+     * @param featureSize  - the number of choices for each feature.
+     * @return - the properties (more may be added before calling create).
+     */
+    public static Properties properties(int featureCount, int featureSize) {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "0");
+        return properties;
+    }
+
+    /**
+     * Creates a game environment.
+     *
+     * @param properties - the configuration properties.
+     * @return - an environment with a real Util and a user interface which does nothing.
+     */
+    public static Env create(Properties properties) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        return new Env(logger, config, new NoUserInterface(), new UtilImpl(config));
+    }
+
+    private static class NoUserInterface implements UserInterface {
+        @Override
+        public void dispose() {}
+        @Override
+        public void placeCard(int card, int slot) {}
+        @Override
+        public void removeCard(int slot) {}
+        @Override
+        public void setCountdown(long millies, boolean warn) {}
+        @Override
+        public void setElapsed(long millies) {}
+        @Override
+        public void setScore(int player, int score) {}
+        @Override
+        public void setFreeze(int player, long millies) {}
+        @Override
+        public void placeToken(int player, int slot) {}
+        @Override
+        public void removeTokens() {}
+        @Override
+        public void removeTokens(int slot) {}
+        @Override
+        public void removeToken(int player, int slot) {}
+        @Override
+        public void announceWinner(int[] players) {}
+    }
+}
@@ -0,0 +1,97 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks of the set engine in UtilImpl.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    @Param({"4", "6"})
+    public int featureCount;
+
+    @Param({"3"})
+    public int featureSize;
+
+    /**
+     * The number of random cards the "table" queries run on.
+     */
+    @Param({"12"})
+    public int tableSize;
+
+    private static final int SAMPLES = 1024;
+
+    private Util util;
+    private List<Integer> deck;
+    private int[][] candidates;
+    private List<Integer>[] tables;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Env env = BenchmarkEnv.create(BenchmarkEnv.properties(featureCount, featureSize));
+        util = env.util;
+        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+
+        Random random = new Random(0);
+        candidates = new int[SAMPLES][];
+        tables = new List[SAMPLES];
+        for (int i = 0; i < SAMPLES; ++i) {
+            candidates[i] = random.ints(0, env.config.deckSize).distinct().limit(featureSize).toArray();
+            tables[i] = random.ints(0, env.config.deckSize).distinct().limit(tableSize).boxed().collect(Collectors.toList());
+        }
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(candidates[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public int[] cardToFeatures() {
+        return util.cardToFeatures(candidates[next++ & (SAMPLES - 1)][0]);
+    }
+
+    @Benchmark
+    public List<int[]> findFirstSetOnTable() {
+        return util.findSets(tables[next++ & (SAMPLES - 1)], 1);
+    }
+
+    @Benchmark
+    public List<int[]> findAllSetsOnTable() {
+        return util.findSets(tables[next++ & (SAMPLES - 1)], Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<int[]> findFirstSetInDeck() {
+        return util.findSets(deck, 1);
+    }
+
+    @Benchmark
+    public List<int[]> findAllSetsInDeck() {
+        return util.findSets(deck, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,69 @@
+package bguspl.set.ex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the round trip of a claim through the claim queue under each wait strategy: the benchmark thread
+ * (a player) offers a claim and waits until a dealer thread, waiting on the queue, polls it and answers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClaimQueueBenchmark {
+
+    @Param({"PARK", "SPIN_THEN_PARK", "BUSY_SPIN"})
+    public ClaimQueue.WaitStrategy strategy;
+
+    private ClaimQueue queue;
+    private Thread dealer;
+    private volatile long answered;
+    private long offered;
+    private final Claim claim = new Claim(0, new int[3]);
+
+    @Setup
+    public void setUp() {
+        queue = new ClaimQueue(1, strategy);
+        answered = 0;
+        offered = 0;
+        dealer = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted())
+                    if (queue.poll(1, TimeUnit.SECONDS) != null)
+                        answered++;
+            } catch (InterruptedException ignored) {}
+        }, "dealer");
+        dealer.setDaemon(true);
+        dealer.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        dealer.interrupt();
+        dealer.join();
+    }
+
+    @Benchmark
+    public long roundTrip() {
+        queue.offer(claim);
+        offered++;
+        while (answered != offered)
+            Thread.onSpinWait();
+        return offered;
+    }
+}
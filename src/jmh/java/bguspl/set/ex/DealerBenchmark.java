@@ -0,0 +1,78 @@
+package bguspl.set.ex;
+
+import bguspl.set.BenchmarkEnv;
+import bguspl.set.Env;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the dealer's claim verification (the cards under a player's tokens against the table).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DealerBenchmark {
+
+    @Param({"4", "6"})
+    public int featureCount;
+
+    @Param({"3"})
+    public int rows;
+
+    @Param({"4"})
+    public int columns;
+
+    private Dealer dealer;
+    private final int[] validClaim = new int[3];
+    private final int[] invalidClaim = new int[3];
+
+    @Setup
+    public void setUp() {
+        Properties properties = BenchmarkEnv.properties(featureCount, 3);
+        properties.put("Rows", Integer.toString(rows));
+        properties.put("Columns", Integer.toString(columns));
+        properties.put("HumanPlayers", "2");
+        Env env = BenchmarkEnv.create(properties);
+
+        Table table = new Table(env);
+        Player[] players = new Player[env.config.players];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, true);
+
+        // cards 0, 1, 2 are a set, cards 0, 1, 3 are not
+        for (int slot = 0; slot < env.config.tableSize; ++slot)
+            table.placeCard(slot, slot);
+        for (int slot = 0; slot < 3; ++slot) {
+            table.placeToken(0, slot);
+            table.placeToken(1, slot == 2 ? 3 : slot);
+        }
+        table.getPlayerTokens(0, validClaim);
+        table.getPlayerTokens(1, invalidClaim);
+    }
+
+    @Benchmark
+    public boolean validClaim() {
+        return dealer.tokensFormSet(validClaim, validClaim.length);
+    }
+
+    @Benchmark
+    public boolean invalidClaim() {
+        return dealer.tokensFormSet(invalidClaim, invalidClaim.length);
+    }
+}
@@ -0,0 +1,82 @@
+package bguspl.set.ex;
+
+import bguspl.set.BenchmarkEnv;
+import bguspl.set.Env;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks of the token operations of the table, with several player threads contending on one table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TableBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Board {
+
+        @Param({"3"})
+        public int rows;
+
+        @Param({"4"})
+        public int columns;
+
+        @Param({"4", "16"})
+        public int players;
+
+        Table table;
+        final AtomicInteger nextPlayer = new AtomicInteger();
+
+        @Setup
+        public void setUp() {
+            Properties properties = BenchmarkEnv.properties(4, 3);
+            properties.put("Rows", Integer.toString(rows));
+            properties.put("Columns", Integer.toString(columns));
+            properties.put("ComputerPlayers", Integer.toString(players));
+            Env env = BenchmarkEnv.create(properties);
+            table = new Table(env);
+            for (int slot = 0; slot < env.config.tableSize; ++slot)
+                table.placeCard(slot, slot);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PlayerState {
+
+        int player;
+        int slot;
+        int tableSize;
+
+        @Setup
+        public void setUp(Board board) {
+            player = board.nextPlayer.getAndIncrement() % board.players;
+            tableSize = board.rows * board.columns;
+            slot = player % tableSize;
+        }
+    }
+
+    @Benchmark
+    public boolean placeAndRemoveToken(Board board, PlayerState state) {
+        state.slot = (state.slot + 1) % state.tableSize;
+        board.table.placeToken(state.player, state.slot);
+        return board.table.removeToken(state.player, state.slot);
+    }
+}
@@ -36,6 +36,11 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The directory in which the catalogues of all legal sets are stored (empty to find the sets on every run)
+     */
+    public final String setCatalogueDirectory;
+
     /**
      * The number of human players in the game.
      */
@@ -81,6 +86,41 @@ public class Config {
      */
     public final long tableDelayMillis;
 
+    /**
+     * Whether a batch of cards placed/removed together is delayed once per card or once for the whole batch
+     */
+    public final boolean tableDelayPerCard;
+
+    /**
+     * How the dealer waits for the players' claims: park, spin-then-park or busy-spin
+     */
+    public final String claimWaitStrategy;
+
+    /**
+     * Whether the players and the computer players run on virtual threads (needs Java 21 or newer)
+     */
+    public final boolean virtualThreads;
+
+    /**
+     * How the computer players choose their claims: hints (random hinted slots) or solver (only valid sets)
+     */
+    public final String aiStrategy;
+
+    /**
+     * The distribution of the computer players' think time: fixed, uniform, exponential or lognormal
+     */
+    public final String aiReactionDistribution;
+
+    /**
+     * The mean think time of the computer players in milliseconds
+     */
+    public final long aiReactionMillis;
+
+    /**
+     * The spread of the computer players' think time in milliseconds (half width of uniform, std. dev. of lognormal)
+     */
+    public final long aiReactionSpreadMillis;
+
     /**
      * The number of milliseconds to pause at the end of the game before closing
      */
@@ -197,6 +237,7 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        setCatalogueDirectory = properties.getProperty("SetCatalogueDirectory", "").trim();
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
@@ -209,6 +250,13 @@ public class Config {
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
+        tableDelayPerCard = Boolean.parseBoolean(properties.getProperty("TableDelayPerCard", "False"));
+        claimWaitStrategy = properties.getProperty("ClaimWaitStrategy", "park").trim();
+        virtualThreads = Boolean.parseBoolean(properties.getProperty("VirtualThreads", "False"));
+        aiStrategy = properties.getProperty("AiStrategy", "hints").trim();
+        aiReactionDistribution = properties.getProperty("AiReactionDistribution", "fixed").trim();
+        aiReactionMillis = (long) (Double.parseDouble(properties.getProperty("AiReactionSeconds", "0")) * 1000.0);
+        aiReactionSpreadMillis = (long) (Double.parseDouble(properties.getProperty("AiReactionSpreadSeconds", "0")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
 
         // ui settings
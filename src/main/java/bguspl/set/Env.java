@@ -9,10 +9,20 @@ public class Env {
     public final UserInterface ui;
     public final Util util;
 
+    /**
+     * The catalogue of all legal sets of the deck (null if none).
+     */
+    public final SetCatalogue catalogue;
+
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, null);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, SetCatalogue catalogue) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.catalogue = catalogue;
     }
 }
@@ -6,6 +6,8 @@ import bguspl.set.ex.Table;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -57,7 +59,14 @@ public class Main {
         }
         ui = new UserInterfaceDecorator(logger, util, ui);
 
-        Env env = new Env(logger, config, ui, util);
+        SetCatalogue catalogue = null;
+        if (!config.setCatalogueDirectory.isEmpty()) try {
+            catalogue = SetCatalogue.load(config, util, Paths.get(config.setCatalogueDirectory), logger);
+        } catch (IOException | InvalidPathException e) {
+            logger.severe("cannot load the set catalogue, sets will be found on every run: " + e.getMessage());
+        }
+
+        Env env = new Env(logger, config, ui, util, catalogue);
 
         // create the game entities
         Table table = new Table(env);
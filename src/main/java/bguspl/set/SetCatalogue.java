@@ -0,0 +1,252 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * A catalogue of all the legal sets of a deck, generated once per (featureCount, featureSize) and stored in a
+ * binary file which is memory-mapped when loaded.
+ * File layout (big-endian ints): a header (magic, version, featureCount, featureSize, deckSize, number of sets),
+ * the sorted cards of every set in lexicographic order, for every card the offset of its sets in the next section
+ * (deckSize + 1 offsets), and the indices of the sets containing every card.
+ */
+public class SetCatalogue {
+
+    private static final int MAGIC = 0x53455443; // "SETC"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 6;
+
+    private final int setSize;
+    private final int count;
+
+    /**
+     * The cards of set s are at [s * setSize, (s + 1) * setSize).
+     */
+    private final IntBuffer sets;
+
+    /**
+     * The indices of the sets containing card c are at members[offsets[c]] to members[offsets[c + 1] - 1].
+     */
+    private final IntBuffer offsets;
+    private final IntBuffer members;
+
+    private SetCatalogue(IntBuffer data, int setSize, int count, int deckSize) {
+        this.setSize = setSize;
+        this.count = count;
+        int setsEnd = HEADER_INTS + count * setSize;
+        int offsetsEnd = setsEnd + deckSize + 1;
+        sets = slice(data, HEADER_INTS, setsEnd);
+        offsets = slice(data, setsEnd, offsetsEnd);
+        members = slice(data, offsetsEnd, offsetsEnd + count * setSize);
+    }
+
+    private static IntBuffer slice(IntBuffer data, int from, int to) {
+        IntBuffer duplicate = data.duplicate();
+        duplicate.position(from);
+        duplicate.limit(to);
+        return duplicate.slice();
+    }
+
+    /**
+     * Loads the catalogue of the configured deck from a directory, generating and storing it first if it does not
+     * exist (or is invalid).
+     *
+     * @param config    - the game configuration (featureCount and featureSize).
+     * @param util      - the utilities used to generate the catalogue.
+     * @param directory - the directory the catalogue files are stored in.
+     * @param logger    - the logger.
+     * @return - the loaded catalogue.
+     * @throws IOException - if the catalogue can neither be read nor written.
+     */
+    public static SetCatalogue load(Config config, Util util, Path directory, Logger logger) throws IOException {
+        Path file = directory.resolve("sets-" + config.featureCount + "-" + config.featureSize + ".bin");
+        if (Files.isRegularFile(file)) {
+            SetCatalogue catalogue = map(file, config);
+            if (catalogue != null) return catalogue;
+            logger.severe("set catalogue " + file + " is invalid, generating it again.");
+        }
+
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "sets-", ".tmp");
+        try {
+            write(temporary, config, util);
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        logger.info("set catalogue " + file + " was generated.");
+
+        SetCatalogue catalogue = map(file, config);
+        if (catalogue == null) throw new IOException("cannot read the generated set catalogue " + file);
+        return catalogue;
+    }
+
+    /**
+     * Memory-maps a catalogue file.
+     *
+     * @return - the catalogue, or null if the file does not match the configuration.
+     */
+    private static SetCatalogue map(Path file, Config config) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_INTS * Integer.BYTES) return null;
+            IntBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+            int count = data.get(5);
+            long expectedInts = HEADER_INTS + 2L * count * config.featureSize + config.deckSize + 1;
+            if (data.get(0) != MAGIC || data.get(1) != VERSION || data.get(2) != config.featureCount
+                    || data.get(3) != config.featureSize || data.get(4) != config.deckSize || count < 0
+                    || data.capacity() != expectedInts)
+                return null;
+            return new SetCatalogue(data, config.featureSize, count, config.deckSize);
+        }
+    }
+
+    /**
+     * Generates the catalogue of the configured deck into a file.
+     */
+    private static void write(Path file, Config config, Util util) throws IOException {
+        int[] deck = IntStream.range(0, config.deckSize).toArray();
+        List<int[]> all = util.findSetsParallel(deck, deck.length, Integer.MAX_VALUE, true);
+        int count = all.size();
+        int setSize = config.featureSize;
+
+        int[] offsets = new int[config.deckSize + 1];
+        for (int[] set : all)
+            for (int card : set)
+                ++offsets[card + 1];
+        for (int card = 0; card < config.deckSize; ++card)
+            offsets[card + 1] += offsets[card];
+
+        int[] members = new int[count * setSize];
+        int[] next = Arrays.copyOf(offsets, config.deckSize);
+        int index = 0;
+        for (int[] set : all) {
+            for (int card : set)
+                members[next[card]++] = index;
+            ++index;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((HEADER_INTS + 2 * count * setSize + config.deckSize + 1) * Integer.BYTES);
+        IntBuffer data = buffer.asIntBuffer();
+        data.put(MAGIC).put(VERSION).put(config.featureCount).put(setSize).put(config.deckSize).put(count);
+        for (int[] set : all)
+            data.put(set);
+        data.put(offsets);
+        data.put(members);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return - the number of legal sets in the deck.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return - the number of cards in every set.
+     */
+    public int setSize() {
+        return setSize;
+    }
+
+    /**
+     * Returns a card of a set.
+     *
+     * @param set      - the set index.
+     * @param position - the position of the card in the set (the cards of a set are sorted).
+     * @return - the card id.
+     */
+    public int card(int set, int position) {
+        return sets.get(set * setSize + position);
+    }
+
+    /**
+     * Returns the cards of a set.
+     *
+     * @param set - the set index.
+     * @return - a new array of the (sorted) card ids of the set.
+     */
+    public int[] set(int set) {
+        int[] cards = new int[setSize];
+        for (int i = 0; i < setSize; ++i)
+            cards[i] = sets.get(set * setSize + i);
+        return cards;
+    }
+
+    /**
+     * @param card - a card id.
+     * @return - the number of sets containing the card.
+     */
+    public int countWith(int card) {
+        return offsets.get(card + 1) - offsets.get(card);
+    }
+
+    /**
+     * Returns one of the sets containing a card.
+     *
+     * @param card - a card id.
+     * @param i    - between 0 and countWith(card) - 1.
+     * @return - the set index.
+     */
+    public int setWith(int card, int i) {
+        return members.get(offsets.get(card) + i);
+    }
+
+    /**
+     * Returns all the sets containing a card.
+     *
+     * @param card - a card id.
+     * @return - a list of integer arrays, each one contains the (sorted) card ids of a legal set.
+     */
+    public List<int[]> setsWith(int card) {
+        int n = countWith(card);
+        List<int[]> result = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i)
+            result.add(set(setWith(card, i)));
+        return result;
+    }
+
+    /**
+     * Checks if the given cards form a legal set, by binary search over the (lexicographically ordered) sets.
+     *
+     * @param cards - the card ids (in any order).
+     * @return - true iff the cards are a legal set.
+     */
+    public boolean isSet(int[] cards) {
+        if (cards.length != setSize) return false;
+        int[] sorted = cards.clone();
+        Arrays.sort(sorted);
+
+        int low = 0, high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = 0;
+            for (int i = 0; i < setSize && comparison == 0; ++i)
+                comparison = Integer.compare(card(middle, i), sorted[i]);
+            if (comparison == 0) return true;
+            if (comparison < 0) low = middle + 1;
+            else high = middle - 1;
+        }
+        return false;
+    }
+}
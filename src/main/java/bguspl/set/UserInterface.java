@@ -18,6 +18,29 @@ public interface UserInterface {
      */
     void removeCard(int slot);
 
+    /**
+     * Draw the card images corresponding to the card ids in the specified slots, as one update.
+     * @param cards - the card ids.
+     * @param slots - the slot numbers, slots[i] is the slot of cards[i].
+     * @param count - the number of cards to draw.
+     */
+    default void placeCards(int[] cards, int[] slots, int count) {
+        for (int i = 0; i < count; ++i)
+            placeCard(cards[i], slots[i]);
+    }
+
+    /**
+     * Draw empty card images and remove all player names text in the specified slots, as one update.
+     * @param slots - the slot numbers.
+     * @param count - the number of slots to clear.
+     */
+    default void removeCards(int[] slots, int count) {
+        for (int i = 0; i < count; ++i) {
+            removeTokens(slots[i]);
+            removeCard(slots[i]);
+        }
+    }
+
     /**
      * Draw a player name text in the specified slot.
      * @param player - the card id.
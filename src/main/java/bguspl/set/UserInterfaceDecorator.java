@@ -33,6 +33,20 @@ public class UserInterfaceDecorator implements UserInterface {
         if (ui != null) ui.removeCard(slot);
     }
 
+    @Override
+    public void placeCards(int[] cards, int[] slots, int count) {
+        logger.severe("placing cards " + Arrays.toString(Arrays.copyOf(cards, count)) + " in slots " + Arrays.toString(Arrays.copyOf(slots, count)));
+        util.spin();
+        if (ui != null) ui.placeCards(cards, slots, count);
+    }
+
+    @Override
+    public void removeCards(int[] slots, int count) {
+        logger.severe("removing cards from slots " + Arrays.toString(Arrays.copyOf(slots, count)));
+        util.spin();
+        if (ui != null) ui.removeCards(slots, count);
+    }
+
     @Override
     public void placeToken(int player, int slot) {
         logger.severe("player " + (player + 1) + " placing token on slot " + slot);
@@ -164,6 +164,22 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             repaint();
         }
 
+        private void placeCards(int[] cards, int[] slots, int count) {
+            for (int i = 0; i < count; i++)
+                grid[slots[i] / config.columns][slots[i] % config.columns] = deck[cards[i]];
+            validate();
+            repaint();
+        }
+
+        private void removeCards(int[] slots, int count) {
+            for (int i = 0; i < count; i++) {
+                grid[slots[i] / config.columns][slots[i] % config.columns] = emptyCard;
+                removeTokens(slots[i]);
+            }
+            validate();
+            repaint();
+        }
+
         private void placeToken(int player, int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
@@ -284,6 +300,16 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         gamePanel.removeCard(slot);
     }
 
+    @Override
+    public void placeCards(int[] cards, int[] slots, int count) {
+        gamePanel.placeCards(cards, slots, count);
+    }
+
+    @Override
+    public void removeCards(int[] slots, int count) {
+        gamePanel.removeCards(slots, count);
+    }
+
     @Override
     public void placeToken(int player, int slot) {
         gamePanel.placeToken(player, slot);
@@ -1,9 +1,18 @@
 package bguspl.set;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * An interface for general utilities provided for convenience.
+ * The set searches all default to the primitive core iterateSets(int[], int), which itself defaults to
+ * findSets(List, int), so an implementation only has to provide findSets(List, int) and may override the primitive
+ * methods with faster searches.
  */
 public interface Util {
 
@@ -31,6 +40,62 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Lazily finds the sets in the given collection of cards: every set is only searched for when it is requested.
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - an iterator over integer arrays, each one contains the (sorted) card ids of a legal set.
+     */
+    default Iterator<int[]> iterateSets(List<Integer> deck) {
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        return iterateSets(cards, cards.length);
+    }
+
+    /**
+     * Lazily finds the sets in the first length cards of the given array (see iterateSets(List)).
+     *
+     * @param cards  - an array of card ids (not modified).
+     * @param length - the number of cards in the array to use.
+     * @return - an iterator over integer arrays, each one contains the (sorted) card ids of a legal set.
+     */
+    default Iterator<int[]> iterateSets(int[] cards, int length) {
+        List<Integer> deck = Arrays.stream(cards, 0, length).boxed().collect(Collectors.toList());
+        List<int[]> sets = findSets(deck, Integer.MAX_VALUE);
+        return sets == null ? Collections.emptyIterator() : sets.iterator();
+    }
+
+    /**
+     * Checks if there is at least one legal set in the given collection of cards (stops at the first set found).
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - true iff the collection contains a legal set.
+     */
+    default boolean containsSet(List<Integer> deck) {
+        return iterateSets(deck).hasNext();
+    }
+
+    /**
+     * Checks if there is at least one legal set in the first length cards of the given array.
+     *
+     * @param cards  - an array of card ids (not modified).
+     * @param length - the number of cards in the array to use.
+     * @return - true iff the cards contain a legal set.
+     */
+    default boolean containsSet(int[] cards, int length) {
+        return iterateSets(cards, length).hasNext();
+    }
+
+    /**
+     * Checks if there is at least one legal set in the given card mask.
+     *
+     * @param cards - a set of card ids (bit c is set iff card c is included).
+     * @return - true iff the cards contain a legal set.
+     */
+    default boolean containsSet(BitSet cards) {
+        int[] array = cards.stream().toArray();
+        return containsSet(array, array.length);
+    }
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +105,145 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds and returns up to count sets in the first length cards of the given array.
+     *
+     * @param cards  - an array of card ids (not modified).
+     * @param length - the number of cards in the array to use.
+     * @param count  - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    default List<int[]> findSets(int[] cards, int length, int count) {
+        List<int[]> sets = new ArrayList<>();
+        for (Iterator<int[]> iterator = iterateSets(cards, length); iterator.hasNext() && sets.size() < count; )
+            sets.add(iterator.next());
+        return sets;
+    }
+
+    /**
+     * Counts the sets in the first length cards of the given array (without collecting them).
+     *
+     * @param cards  - an array of card ids (not modified).
+     * @param length - the number of cards in the array to use.
+     * @return - the number of legal sets among the cards.
+     */
+    default int countSets(int[] cards, int length) {
+        int count = 0;
+        for (Iterator<int[]> iterator = iterateSets(cards, length); iterator.hasNext(); iterator.next())
+            ++count;
+        return count;
+    }
+
+    /**
+     * Finds and returns up to count sets in the given card mask.
+     *
+     * @param cards - a set of card ids (bit c is set iff card c is included).
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    default List<int[]> findSets(BitSet cards, int count) {
+        int[] array = cards.stream().toArray();
+        return findSets(array, array.length, count);
+    }
+
+    /**
+     * Finds and returns up to count sets in the given collection of cards, splitting the search between the threads
+     * of the common fork/join pool (small collections are searched sequentially).
+     *
+     * @param deck    - a collection of cards (may not include null objects).
+     * @param count   - the maximum number of sets to find.
+     * @param ordered - true iff the result must be exactly the first count sets findSets would return, otherwise
+     *                the search may stop as soon as any count sets were found.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    default List<int[]> findSetsParallel(List<Integer> deck, int count, boolean ordered) {
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        return findSetsParallel(cards, cards.length, count, ordered);
+    }
+
+    /**
+     * Finds and returns up to count sets in the first length cards of the given array, in parallel
+     * (see findSetsParallel(List, int, boolean)).
+     *
+     * @param cards   - an array of card ids (not modified).
+     * @param length  - the number of cards in the array to use.
+     * @param count   - the maximum number of sets to find.
+     * @param ordered - true iff the result must be exactly the first count sets findSets would return.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    default List<int[]> findSetsParallel(int[] cards, int length, int count, boolean ordered) {
+        return findSets(cards, length, count); // sequential unless overridden
+    }
+
+    /**
+     * Finds and returns up to count sets made of the given card and other cards from the given collection.
+     *
+     * @param card  - the card id every set must contain.
+     * @param deck  - a collection of cards to complete the sets from (may not include null objects).
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set including card.
+     */
+    default List<int[]> findSetsWith(int card, List<Integer> deck, int count) {
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        return findSetsWith(card, cards, cards.length, count);
+    }
+
+    /**
+     * Finds and returns up to count sets made of the given card and other cards from the first length cards of the
+     * given array.
+     *
+     * @param card   - the card id every set must contain.
+     * @param cards  - an array of card ids to complete the sets from (not modified).
+     * @param length - the number of cards in the array to use.
+     * @param count  - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set including card.
+     */
+    default List<int[]> findSetsWith(int card, int[] cards, int length, int count) {
+        int[] pool = new int[length + 1];
+        int size = 0;
+        pool[size++] = card;
+        for (int i = 0; i < length; ++i)
+            if (cards[i] != card)
+                pool[size++] = cards[i];
+
+        List<int[]> sets = new ArrayList<>();
+        for (Iterator<int[]> iterator = iterateSets(pool, size); iterator.hasNext() && sets.size() < count; ) {
+            int[] set = iterator.next();
+            for (int other : set)
+                if (other == card) {
+                    sets.add(set);
+                    break;
+                }
+        }
+        return sets;
+    }
+
+    /**
+     * Counts the sets made of the given card and other cards from the first length cards of the given array (without
+     * collecting them).
+     *
+     * @param card   - the card id every set must contain.
+     * @param cards  - an array of card ids to complete the sets from (not modified).
+     * @param length - the number of cards in the array to use.
+     * @return - the number of legal sets including card.
+     */
+    default int countSetsWith(int card, int[] cards, int length) {
+        return findSetsWith(card, cards, length, Integer.MAX_VALUE).size();
+    }
+
+    /**
+     * Finds and returns up to count sets made of the given card and other cards from the given card mask.
+     *
+     * @param card  - the card id every set must contain.
+     * @param cards - a set of card ids to complete the sets from (bit c is set iff card c is included).
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set including card.
+     */
+    default List<int[]> findSetsWith(int card, BitSet cards, int count) {
+        int[] array = cards.stream().toArray();
+        return findSetsWith(card, array, array.length, count);
+    }
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -1,10 +1,14 @@
 package bguspl.set;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The implementation of the UserInterface interface.
@@ -13,81 +17,432 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The features of every card, precomputed once: the features of card c are at [c * featureCount, (c + 1) * featureCount).
+     */
+    private final int[] features;
+
+    /**
+     * Every card packed into a long, featureSize bits per feature with exactly one bit set in each (null if the
+     * features do not fit in 64 bits).
+     */
+    private final long[] packed;
+
+    /**
+     * The lowest bit of every feature in the packed representation.
+     */
+    private final long lowBits;
+
+    /**
+     * The minimal number of cards for which findSetsParallel actually runs in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 128;
+
+    /**
+     * The number of smallest cards a single parallel task searches from.
+     */
+    private static final int PARALLEL_GRAIN = 8;
+
     public UtilImpl(Config config) {
         this.config = config;
-    }
 
-    private void cardToFeatures(int card, int[] features) {
-        for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
-            card /= config.featureSize;
+        features = new int[config.deckSize * config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card)
+            for (int i = config.featureCount - 1, value = card; i >= 0; --i) {
+                features[card * config.featureCount + i] = value % config.featureSize;
+                value /= config.featureSize;
+            }
+
+        if (config.featureSize * config.featureCount <= Long.SIZE) {
+            packed = new long[config.deckSize];
+            long bits = 0;
+            for (int i = 0; i < config.featureCount; ++i)
+                bits |= 1L << (i * config.featureSize);
+            for (int card = 0; card < config.deckSize; ++card)
+                for (int i = 0; i < config.featureCount; ++i)
+                    packed[card] |= 1L << (i * config.featureSize + features[card * config.featureCount + i]);
+            lowBits = bits;
+        } else {
+            packed = null;
+            lowBits = 0;
         }
     }
 
     @Override
     public int[] cardToFeatures(int card) {
-        int[] features = new int[config.featureCount];
-        cardToFeatures(card, features);
-        return features;
+        return Arrays.copyOfRange(features, card * config.featureCount, (card + 1) * config.featureCount);
     }
 
     @Override
     public int[][] cardsToFeatures(int[] cards) {
-        int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        int[][] features = new int[cards.length][];
+        for (int i = 0; i < cards.length; ++i)
+            features[i] = cardToFeatures(cards[i]);
         return features;
     }
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
-            boolean sameSame = true, butDifferent = true;
+        if (cards.length < 2) return false;
+        if (packed == null) return testSetByFeatures(cards);
 
-            // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
-                    sameSame = false;
-                    break;
-                }
+        long any = 0, all = -1L;
+        for (int card : cards) {
+            any |= packed[card];
+            all &= packed[card];
+        }
 
-            // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
-                        butDifferent = false;
-                        break;
-                    }
+        // a feature is sameSame iff its bits in all are not empty, and butDifferent iff as many of its bits are
+        // set in any as there are cards
+        if (cards.length == config.featureSize) {
+            long sameSame = 0, butDifferent = -1L;
+            for (int shift = 0; shift < config.featureSize; ++shift) {
+                sameSame |= all >>> shift;
+                butDifferent &= any >>> shift;
+            }
+            return ((sameSame | butDifferent) & lowBits) == lowBits;
+        }
+
+        long featureMask = (1L << config.featureSize) - 1;
+        for (int i = 0; i < config.featureCount; ++i) {
+            int shift = i * config.featureSize;
+            if ((all >>> shift & featureMask) == 0 && Long.bitCount(any >>> shift & featureMask) != cards.length)
+                return false;
+        }
+        return true;
+    }
 
+    /**
+     * Checks if an array of cards forms a legal set directly on the features table (used when cards do not fit
+     * the packed representation).
+     */
+    private boolean testSetByFeatures(int[] cards) {
+        for (int i = 0; i < config.featureCount; ++i) {
+            int first = features[cards[0] * config.featureCount + i];
+            boolean sameSame = true, butDifferent = true;
+            for (int j = 1; j < cards.length; ++j) {
+                int value = features[cards[j] * config.featureCount + i];
+                if (value != first) sameSame = false;
+                for (int k = 0; k < j && butDifferent; ++k)
+                    if (features[cards[k] * config.featureCount + i] == value) butDifferent = false;
+            }
             if (sameSame == butDifferent) return false;
         }
         return true;
     }
 
+    /**
+     * Computes the only card completing the given two cards into a legal set (for featureSize == 3 only).
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the card id of the third card.
+     */
+    private int thirdCard(int first, int second) {
+        int third = 0;
+        for (int i = 0; i < config.featureCount; ++i) {
+            int sum = features[first * config.featureCount + i] + features[second * config.featureCount + i];
+            third = third * config.featureSize + (2 * config.featureSize - sum) % config.featureSize;
+        }
+        return third;
+    }
+
+    /**
+     * Converts a collection of cards to a sorted primitive pool.
+     */
+    private int[] toPool(List<Integer> deck) {
+        int[] pool = new int[deck.size()];
+        int i = 0;
+        for (Integer card : deck)
+            pool[i++] = card;
+        Arrays.sort(pool);
+        return pool;
+    }
+
+    /**
+     * Converts the first length cards of an array to a sorted primitive pool.
+     */
+    private int[] toPool(int[] cards, int length) {
+        int[] pool = Arrays.copyOf(cards, length);
+        Arrays.sort(pool);
+        return pool;
+    }
+
+    /**
+     * Marks the cards of the pool in a presence bitmap (only needed for the completion search, null otherwise).
+     */
+    private long[] toPresence(int[] pool) {
+        if (config.featureSize != 3) return null;
+        long[] present = new long[(config.deckSize + 63) >>> 6];
+        for (int card : pool)
+            present[card >>> 6] |= 1L << card;
+        return present;
+    }
+
+    @Override
+    public Iterator<int[]> iterateSets(int[] cards, int length) {
+        return iterateSets(toPool(cards, length));
+    }
+
+    private Iterator<int[]> iterateSets(int[] pool) {
+        return new SetIterator(pool, toPresence(pool), -1, 0, pool.length);
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        return take(iterateSets(toPool(deck)), count);
+    }
+
+    @Override
+    public List<int[]> findSetsParallel(int[] cards, int length, int count, boolean ordered) {
+        return findSetsParallel(toPool(cards, length), count, ordered);
+    }
+
+    private List<int[]> findSetsParallel(int[] pool, int count, boolean ordered) {
+        if (pool.length < PARALLEL_THRESHOLD) return take(iterateSets(pool), count);
+
+        List<int[]> sets = ForkJoinPool.commonPool().invoke(
+                new FindSetsTask(pool, toPresence(pool), 0, pool.length, count, ordered ? null : new AtomicInteger()));
+        return sets.size() > count ? new LinkedList<>(sets.subList(0, count)) : sets;
+    }
+
+    @Override
+    public List<int[]> findSetsWith(int card, int[] cards, int length, int count) {
+        return findSetsWith(card, toPool(cards, length), count);
+    }
+
+    private List<int[]> findSetsWith(int card, int[] pool, int count) {
+        pool = Arrays.stream(pool).filter(other -> other != card).toArray();
+        return take(new SetIterator(pool, toPresence(pool), card, 0, pool.length), count);
+    }
+
+    @Override
+    public int countSets(int[] cards, int length) {
+        int[] pool = toPool(cards, length);
+        return count(new SetIterator(pool, toPresence(pool), -1, 0, pool.length));
+    }
+
+    @Override
+    public int countSetsWith(int card, int[] cards, int length) {
+        int[] pool = Arrays.stream(cards, 0, length).filter(other -> other != card).sorted().toArray();
+        return count(new SetIterator(pool, toPresence(pool), card, 0, pool.length));
+    }
+
+    /**
+     * Counts the sets left in an iterator without copying them out of the search.
+     */
+    private static int count(SetIterator iterator) {
+        int count = 0;
+        while (iterator.advance())
+            ++count;
+        return count;
+    }
+
+    /**
+     * Collects up to count sets from an iterator.
+     */
+    private static List<int[]> take(Iterator<int[]> iterator, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
-
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
-
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
+        while (iterator.hasNext()) {
+            sets.add(iterator.next());
+            if (sets.size() >= count) break;
+        }
+        return sets;
+    }
+
+    /**
+     * A fork/join task finding the sets whose smallest card is in a range of the pool. Ranges are split in halves
+     * until they are small enough, and the results are concatenated in pool order.
+     */
+    private class FindSetsTask extends RecursiveTask<List<int[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] pool;
+        private final long[] present;
+        private final int from;
+        private final int to;
+        private final int count;
+
+        /**
+         * The number of sets found by all tasks (null if the results must be the first count sets in pool order).
+         */
+        private final AtomicInteger found;
+
+        FindSetsTask(int[] pool, long[] present, int from, int to, int count, AtomicInteger found) {
+            this.pool = pool;
+            this.present = present;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+            this.found = found;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            if (to - from <= PARALLEL_GRAIN) {
+                LinkedList<int[]> sets = new LinkedList<>();
+                SetIterator iterator = new SetIterator(pool, present, -1, from, to);
+                while (sets.size() < count && (found == null || found.get() < count) && iterator.hasNext()) {
+                    sets.add(iterator.next());
+                    if (found != null) found.incrementAndGet();
+                }
+                return sets;
             }
 
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+            int middle = (from + to) >>> 1;
+            FindSetsTask left = new FindSetsTask(pool, present, from, middle, count, found);
+            FindSetsTask right = new FindSetsTask(pool, present, middle, to, count, found);
+            left.fork();
+            List<int[]> rightSets = right.compute();
+            List<int[]> sets = left.join();
+            sets.addAll(rightSets);
+            return sets;
+        }
+    }
+
+    /**
+     * Spreads the bits of every feature in the packed representation onto the lowest bit of that feature.
+     *
+     * @param bits - packed feature bits.
+     * @return - the lowest bit of every feature which has at least one bit set.
+     */
+    private long spread(long bits) {
+        long spread = 0;
+        for (int shift = 0; shift < config.featureSize; ++shift)
+            spread |= bits >>> shift;
+        return spread & lowBits;
+    }
+
+    /**
+     * Lazily finds the sets of a sorted pool, in pool order, one at a time. Only the returned arrays are allocated.
+     * When featureSize == 3 every pair of cards is walked and the card completing it is looked up in the presence
+     * bitmap (O(n^2) instead of O(n^3)). Otherwise, the cards are selected by backtracking: every partial selection
+     * is checked feature by feature and a branch is abandoned as soon as some feature is neither sameSame nor
+     * butDifferent.
+     */
+    private class SetIterator implements Iterator<int[]> {
+
+        private final int[] pool;
+        private final long[] present;
+
+        /**
+         * The number of cards preset in every set (0 or 1) and the range of pool indices of the first selected card.
+         */
+        private final int base;
+        private final int to;
+
+        /**
+         * The cards selected so far, and for every depth the next pool index to try.
+         */
+        private final int[] cards;
+        private final int[] next;
+
+        /**
+         * For every depth, the OR and AND of the packed cards selected before it and the lowest bit of every feature
+         * in which some value was selected more than once.
+         */
+        private final long[] any;
+        private final long[] all;
+        private final long[] repeated;
+
+        private int depth;
+        private boolean ready;
+        private boolean done;
+
+        /**
+         * @param pool    - the sorted cards to choose from.
+         * @param present - the presence bitmap of the pool (featureSize == 3 only).
+         * @param card    - a card every set must contain (not in the pool), or -1 if none.
+         * @param from    - the first pool index of the first selected card.
+         * @param to      - the pool index after the last one of the first selected card.
+         */
+        SetIterator(int[] pool, long[] present, int card, int from, int to) {
+            this.pool = pool;
+            this.present = present;
+            this.to = to;
+            int r = config.featureSize;
+            cards = new int[r];
+            next = new int[r];
+            any = new long[r];
+            all = new long[r];
+            repeated = new long[r];
+
+            all[0] = -1L;
+            if (card >= 0) {
+                cards[0] = card;
+                if (packed != null) {
+                    any[1] = packed[card];
+                    all[1] = packed[card];
+                }
+                base = 1;
+            } else base = 0;
+            depth = base;
+            next[depth] = from;
+        }
+
+        /**
+         * Moves the search to the next set.
+         *
+         * @return - true iff a set was found (and is in cards).
+         */
+        private boolean advance() {
+            int r = cards.length;
+            while (depth >= base) {
+                int i = next[depth];
+                int limit = depth == base ? to : pool.length;
+                if (i >= limit || pool.length - i < r - depth - (present != null && depth == 1 ? 1 : 0)) {
+                    --depth;
+                    continue;
+                }
+                next[depth] = i + 1;
+                cards[depth] = pool[i];
+
+                if (present != null && depth == 1) { // complete the pair, each set is found from its two smallest cards
+                    int third = thirdCard(cards[0], cards[1]);
+                    if (third > cards[1] && (present[third >>> 6] & (1L << third)) != 0) {
+                        cards[2] = third;
+                        return true;
+                    }
+                    continue;
+                }
+
+                if (packed != null) {
+                    long card = packed[pool[i]];
+                    long nextRepeated = repeated[depth] | spread(any[depth] & card);
+
+                    // a feature with a repeated value must be sameSame
+                    if ((nextRepeated & ~spread(all[depth] & card)) != 0) continue;
+                    if (depth + 1 == r) return true;
+                    any[depth + 1] = any[depth] | card;
+                    all[depth + 1] = all[depth] & card;
+                    repeated[depth + 1] = nextRepeated;
+                } else if (depth + 1 == r) {
+                    if (testSet(cards)) return true;
+                    continue;
+                }
+                next[++depth] = i + 1;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready && !done) {
+                ready = advance();
+                done = !ready;
+            }
+            return ready;
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ready = false;
+            int[] set = cards.clone();
+            if (base > 0) Arrays.sort(set);
+            return set;
         }
-        return sets;
     }
 
     public void spin() {
@@ -0,0 +1,16 @@
+package bguspl.set.ex;
+
+/**
+ * The way a computer player chooses its next claim from a snapshot of the board.
+ */
+public interface AiStrategy {
+
+    /**
+     * Chooses the slots of the next claim.
+     *
+     * @param board - the snapshot of the board to move on.
+     * @param move  - filled with the distinct slots to place tokens on (its length is the feature size).
+     * @return - true iff a move was chosen, false if the AI should wait for the next board.
+     */
+    boolean chooseMove(BoardSnapshot board, int[] move);
+}
@@ -0,0 +1,71 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.Phaser;
+
+/**
+ * A gate the players wait on while the dealer is changing the cards on the table. The dealer closes the gate before
+ * changing the cards and opens it when done; every opening advances a phaser phase, which wakes exactly the threads
+ * waiting for that phase.
+ */
+public class BoardGate {
+
+    /**
+     * The value of closedPhase when the gate is open.
+     */
+    private static final int OPEN = -1;
+
+    /**
+     * The phaser advanced by every opening (the dealer is its only party).
+     */
+    private final Phaser phaser;
+
+    /**
+     * The phase of the phaser while the gate is closed, OPEN if the gate is open.
+     */
+    private volatile int closedPhase;
+
+    /**
+     * The class constructor, creates a closed gate.
+     */
+    public BoardGate() {
+        this.phaser = new Phaser(1);
+        this.closedPhase = phaser.getPhase();
+    }
+
+    /**
+     * Closes the gate (called by the dealer before changing the cards).
+     */
+    public void close() {
+        if(closedPhase == OPEN)
+            closedPhase = phaser.getPhase();
+    }
+
+    /**
+     * Opens the gate and wakes the waiting threads (called by the dealer when done changing the cards).
+     */
+    public void open() {
+        if(closedPhase != OPEN) {
+            closedPhase = OPEN;
+            phaser.arrive();
+        }
+    }
+
+    /**
+     * Checks if the gate is open.
+     *
+     * @return - true iff the gate is open.
+     */
+    public boolean isOpen() {
+        return closedPhase == OPEN;
+    }
+
+    /**
+     * Waits until the gate is open.
+     *
+     * @throws InterruptedException - if the thread is interrupted while waiting.
+     */
+    public void awaitOpen() throws InterruptedException {
+        for(int phase = closedPhase; phase != OPEN; phase = closedPhase)
+            phaser.awaitAdvanceInterruptibly(phase);
+    }
+}
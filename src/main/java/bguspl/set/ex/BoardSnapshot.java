@@ -0,0 +1,67 @@
+package bguspl.set.ex;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable copy of the cards on the table, published by the table after every change of the cards so it can be
+ * read without locks.
+ */
+public class BoardSnapshot {
+
+    /**
+     * The board epoch of the snapshot (incremented by every change of the cards on the table).
+     */
+    public final long epoch;
+
+    /**
+     * Mapping between a slot and the card placed in it (Table.NONE if none).
+     */
+    private final int[] slotToCard;
+
+    /**
+     * The legal sets on the table, each one contains the (sorted) card ids of a legal set.
+     */
+    private final List<int[]> sets;
+
+    /**
+     * The class constructor.
+     *
+     * @param epoch      - the board epoch of the snapshot.
+     * @param slotToCard - a private copy of the mapping between a slot and the card placed in it.
+     * @param sets       - a private copy of the legal sets on the table.
+     */
+    BoardSnapshot(long epoch, int[] slotToCard, List<int[]> sets) {
+        this.epoch = epoch;
+        this.slotToCard = slotToCard;
+        this.sets = Collections.unmodifiableList(sets);
+    }
+
+    /**
+     * Returns the card placed in a slot.
+     *
+     * @param slot - the slot.
+     * @return - the card id in the slot, or Table.NONE if the slot is empty.
+     */
+    public int cardAt(int slot) {
+        return slotToCard[slot];
+    }
+
+    /**
+     * Returns the number of slots on the table.
+     *
+     * @return - the table size.
+     */
+    public int slots() {
+        return slotToCard.length;
+    }
+
+    /**
+     * Returns the legal sets on the table (the arrays must not be modified).
+     *
+     * @return - the sets, each one contains the (sorted) card ids of a legal set.
+     */
+    public List<int[]> sets() {
+        return sets;
+    }
+}
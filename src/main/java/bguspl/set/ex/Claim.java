@@ -0,0 +1,71 @@
+package bguspl.set.ex;
+
+/**
+ * A claim of a player that the cards under its tokens form a legal set. Every player reuses one claim, restamped
+ * whenever the player claims a set (the player waits while the dealer checks it).
+ */
+public class Claim {
+
+    /**
+     * The id of the claiming player.
+     */
+    public final int player;
+
+    /**
+     * The board epoch the claim was formed under.
+     */
+    private long epoch;
+
+    /**
+     * The time the claim was made (System.nanoTime()), claims are resolved in this order.
+     */
+    private long time;
+
+    /**
+     * The slots of the player's tokens.
+     */
+    public final int[] slots;
+
+    /**
+     * The class constructor.
+     *
+     * @param player - the id of the claiming player.
+     * @param slots  - the slots of the player's tokens.
+     */
+    public Claim(int player, int[] slots) {
+        this.player = player;
+        this.slots = slots;
+    }
+
+    /**
+     * The class constructor of a stamped claim.
+     *
+     * @param player - the id of the claiming player.
+     * @param epoch  - the board epoch the claim was formed under.
+     * @param time   - the time the claim was made (System.nanoTime()).
+     * @param slots  - the slots of the player's tokens.
+     */
+    public Claim(int player, long epoch, long time, int[] slots) {
+        this(player, slots);
+        stamp(epoch, time);
+    }
+
+    /**
+     * Stamps the claim before it is handed to the dealer.
+     *
+     * @param epoch - the board epoch the claim was formed under.
+     * @param time  - the time the claim was made (System.nanoTime()).
+     */
+    public void stamp(long epoch, long time) {
+        this.epoch = epoch;
+        this.time = time;
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public long time() {
+        return time;
+    }
+}
@@ -0,0 +1,224 @@
+package bguspl.set.ex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded lock-free queue of claims for many producers (the players) and a single consumer (the dealer), kept in
+ * an array ring where every cell has a sequence number telling whose turn it is: the producer of round r may write
+ * cell i when its sequence is r * capacity + i, and the consumer may read it when its sequence is one more.
+ * Offering and polling never lock nor allocate; how the consumer waits for a claim is set by the wait strategy.
+ */
+public class ClaimQueue {
+
+    /**
+     * How the consumer waits for a claim, trading CPU for the latency of picking the claim up.
+     */
+    public enum WaitStrategy {
+
+        /**
+         * Park the consumer thread until a producer unparks it (no CPU while idle).
+         */
+        PARK("park"),
+
+        /**
+         * Spin for a short while before parking (fast pickup of claims that arrive soon).
+         */
+        SPIN_THEN_PARK("spin-then-park"),
+
+        /**
+         * Spin until a claim arrives (a whole core while idle, the fastest pickup).
+         */
+        BUSY_SPIN("busy-spin");
+
+        /**
+         * The name of the strategy in the configuration.
+         */
+        public final String name;
+
+        WaitStrategy(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the strategy with a name.
+         *
+         * @param name - the name of the strategy in the configuration (case insensitive).
+         * @return - the strategy, or null if there is no strategy with the name.
+         */
+        public static WaitStrategy forName(String name) {
+            for (WaitStrategy strategy : values())
+                if (strategy.name.equalsIgnoreCase(name.trim()))
+                    return strategy;
+            return null;
+        }
+    }
+
+    /**
+     * The number of times SPIN_THEN_PARK spins before parking.
+     */
+    private static final int SPINS = 1 << 12;
+
+    /**
+     * The claims in the ring.
+     */
+    private final AtomicReferenceArray<Claim> claims;
+
+    /**
+     * The sequence number of every cell of the ring.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * The capacity of the ring minus one (the capacity is a power of 2).
+     */
+    private final int mask;
+
+    /**
+     * The position of the next claim to offer.
+     */
+    private final AtomicLong tail;
+
+    /**
+     * The position of the next claim to poll (only used by the consumer).
+     */
+    private long head;
+
+    /**
+     * How the consumer waits for a claim.
+     */
+    private final WaitStrategy strategy;
+
+    /**
+     * The consumer thread, set while it is about to park.
+     */
+    private volatile Thread parkedConsumer;
+
+    /**
+     * The class constructor.
+     *
+     * @param capacity - the minimal number of claims the queue can hold.
+     * @param strategy - how the consumer waits for a claim.
+     */
+    public ClaimQueue(int capacity, WaitStrategy strategy) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.claims = new AtomicReferenceArray<Claim>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; ++i)
+            sequences.set(i, i);
+        this.mask = size - 1;
+        this.tail = new AtomicLong();
+        this.strategy = strategy;
+    }
+
+    /**
+     * Adds a claim to the queue (any thread).
+     *
+     * @param claim - the claim.
+     * @return - true iff the claim was added, false if the queue is full.
+     */
+    public boolean offer(Claim claim) {
+        long position;
+        while (true) {
+            position = tail.get();
+            long turn = sequences.get((int) position & mask) - position;
+            if (turn == 0 && tail.compareAndSet(position, position + 1))
+                break;
+            if (turn < 0)
+                return false;
+        }
+        claims.set((int) position & mask, claim);
+        sequences.set((int) position & mask, position + 1); // publish the claim to the consumer
+
+        Thread consumer = parkedConsumer;
+        if (consumer != null)
+            LockSupport.unpark(consumer);
+        return true;
+    }
+
+    /**
+     * Removes the oldest claim from the queue (consumer thread only).
+     *
+     * @return - the claim, or null if the queue is empty.
+     */
+    public Claim poll() {
+        int cell = (int) head & mask;
+        if (sequences.get(cell) != head + 1)
+            return null;
+        Claim claim = claims.get(cell);
+        claims.set(cell, null);
+        sequences.set(cell, head + mask + 1); // free the cell for the next round of producers
+        head++;
+        return claim;
+    }
+
+    /**
+     * Removes the oldest claim from the queue, waiting for one with the wait strategy (consumer thread only).
+     *
+     * @param timeout - how long to wait.
+     * @param unit    - the unit of the timeout.
+     * @return - the claim, or null if none arrived before the timeout.
+     * @throws InterruptedException - if the thread is interrupted while waiting.
+     */
+    public Claim poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + nanos;
+        if (deadline < 0 && nanos > 0) // overflowed, wait forever
+            deadline = Long.MAX_VALUE;
+
+        for (int spins = 0; ; ++spins) {
+            Claim claim = poll();
+            if (claim != null)
+                return claim;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return null;
+
+            if (strategy == WaitStrategy.BUSY_SPIN || (strategy == WaitStrategy.SPIN_THEN_PARK && spins < SPINS)) {
+                Thread.onSpinWait();
+                continue;
+            }
+            parkedConsumer = Thread.currentThread();
+            if (isEmpty()) // a claim offered before parkedConsumer was set would not unpark this thread
+                LockSupport.parkNanos(this, remaining);
+            parkedConsumer = null;
+        }
+    }
+
+    /**
+     * Removes all the claims from the queue (consumer thread only).
+     *
+     * @param claims - the list to add the claims to, in the order they were offered.
+     * @return - the number of claims added.
+     */
+    public int drainTo(List<Claim> claims) {
+        int count = 0;
+        for (Claim claim = poll(); claim != null; claim = poll(), ++count)
+            claims.add(claim);
+        return count;
+    }
+
+    /**
+     * Checks if there is no claim to poll.
+     *
+     * @return - true iff the queue is empty.
+     */
+    public boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    /**
+     * Returns the number of claims in the queue.
+     *
+     * @return - the number of claims offered and not polled yet.
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
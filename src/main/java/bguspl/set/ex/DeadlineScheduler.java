@@ -0,0 +1,153 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+
+/**
+ * A priority queue of deadlines with at most one deadline per key (an indexed binary min-heap), so the dealer can
+ * sleep exactly until the next thing it has to do. Not thread safe: used by the dealer thread only.
+ */
+public class DeadlineScheduler {
+
+    /**
+     * The value of nextDeadline() when nothing is scheduled.
+     */
+    public static final long NEVER = Long.MAX_VALUE;
+
+    /**
+     * The scheduled keys, ordered as a binary min-heap by deadline (only the first size entries are used).
+     */
+    private final int[] heap;
+
+    /**
+     * Mapping between a key and its index in heap (-1 if not scheduled).
+     */
+    private final int[] positions;
+
+    /**
+     * Mapping between a key and its deadline.
+     */
+    private final long[] deadlines;
+
+    /**
+     * The number of scheduled keys.
+     */
+    private int size;
+
+    /**
+     * The class constructor.
+     *
+     * @param keys - the keys that can be scheduled are 0 to keys - 1.
+     */
+    public DeadlineScheduler(int keys) {
+        this.heap = new int[keys];
+        this.positions = new int[keys];
+        this.deadlines = new long[keys];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Schedules a key, replacing its previous deadline (if any).
+     *
+     * @param key      - the key.
+     * @param deadline - the time (in milliseconds) the key is due.
+     */
+    public void schedule(int key, long deadline) {
+        int position = positions[key];
+        if(position == -1) {
+            position = size++;
+            heap[position] = key;
+            positions[key] = position;
+        }
+        deadlines[key] = deadline;
+        siftDown(siftUp(position));
+    }
+
+    /**
+     * Cancels the deadline of a key (if any).
+     *
+     * @param key - the key.
+     */
+    public void cancel(int key) {
+        int position = positions[key];
+        if(position != -1)
+            removeAt(position);
+    }
+
+    /**
+     * Checks if a key is scheduled.
+     *
+     * @param key - the key.
+     * @return - true iff the key has a deadline.
+     */
+    public boolean isScheduled(int key) {
+        return positions[key] != -1;
+    }
+
+    /**
+     * Returns the earliest deadline.
+     *
+     * @return - the earliest deadline, or NEVER if nothing is scheduled.
+     */
+    public long nextDeadline() {
+        return size == 0 ? NEVER : deadlines[heap[0]];
+    }
+
+    /**
+     * Removes the key with the earliest deadline, if it is due.
+     *
+     * @param now - the current time (in milliseconds).
+     * @return - the key whose deadline is at or before now, or -1 if none.
+     */
+    public int pollDue(long now) {
+        if(size == 0 || deadlines[heap[0]] > now)
+            return -1;
+        int key = heap[0];
+        removeAt(0);
+        return key;
+    }
+
+    private void removeAt(int position) {
+        int key = heap[position];
+        positions[key] = -1;
+        if(position == --size)
+            return;
+        int last = heap[size];
+        heap[position] = last;
+        positions[last] = position;
+        siftDown(siftUp(position));
+    }
+
+    private int siftUp(int position) {
+        int key = heap[position];
+        while(position > 0) {
+            int parent = (position - 1) >>> 1;
+            if(deadlines[heap[parent]] <= deadlines[key])
+                break;
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(key, position);
+        return position;
+    }
+
+    private void siftDown(int position) {
+        int key = heap[position];
+        while(true) {
+            int child = 2 * position + 1;
+            if(child >= size)
+                break;
+            if(child + 1 < size && deadlines[heap[child + 1]] < deadlines[heap[child]])
+                child++;
+            if(deadlines[key] <= deadlines[heap[child]])
+                break;
+            move(heap[child], position);
+            position = child;
+        }
+        move(key, position);
+    }
+
+    private void move(int key, int position) {
+        heap[position] = key;
+        positions[key] = position;
+    }
+}
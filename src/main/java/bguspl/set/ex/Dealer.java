@@ -1,17 +1,14 @@
 package bguspl.set.ex;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Random;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import bguspl.set.Env;
 
@@ -33,13 +30,24 @@ public class Dealer implements Runnable {
     
     
     //our fields:
-    private final BlockingQueue<Integer> playersSetsToCheck;
-    private final List<Integer> cardsToRemove;
+    private final ClaimQueue playersSetsToCheck;
+    private final int[] cardsToRemove;
+    private int cardsToRemoveCount;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck, kept shuffled (only the first deckSize entries are used).
      */
-    private final List<Integer> deck;
+    private final int[] deck;
+
+    /**
+     * The number of cards left in the dealer's deck.
+     */
+    private int deckSize;
+
+    /**
+     * The legal sets left among the cards still in the game (in the deck or on the table).
+     */
+    private final SetsInPlay setsInPlay;
 
     /**
      * True iff game should be terminated due to an external event.
@@ -55,24 +63,103 @@ public class Dealer implements Runnable {
 
     private Thread dealerThread;
     
-    private List<Integer> hintsForAI;
+    private volatile List<Integer> hintsForAI;
     
     
     private final int RANDOM_ADDITION = 3;
-    
-    private boolean changingCards;
-    private final Object cardsLocker;
+
+    /**
+     * The number of milliseconds between countdown display updates while the countdown warning is displayed.
+     */
+    private static final long WARNING_TICK_MILLIS = 30;
+
+    /**
+     * The keys of the dealer's deadlines: the next timer display update, the reshuffle, and the next freeze display
+     * update of each player (FREEZE + player id).
+     */
+    private static final int TICK = 0, RESHUFFLE = 1, FREEZE = 2;
+
+    /**
+     * The deadlines the dealer sleeps until (when no claim wakes it up first).
+     */
+    private final DeadlineScheduler deadlines;
+
+    /**
+     * The claims drained from playersSetsToCheck in one pass, reused by the dealer thread.
+     */
+    private final List<Claim> pendingClaims;
+
+    /**
+     * The order in which drained claims are resolved.
+     */
+    private static final Comparator<Claim> BY_TIME = Comparator.comparingLong(Claim::time);
+
+    /**
+     * The slots of the sets awarded and not removed yet (indexed by slot, 1 if awarded), read by the player threads.
+     */
+    private final AtomicIntegerArray awardedSlots;
+
+    /**
+     * The cards of the claim being checked, reused by the dealer thread.
+     */
+    private final int[] claimedCards;
+
+    /**
+     * The gate the players wait on while the dealer is changing the cards on the table.
+     */
+    private final BoardGate boardGate;
+
+    /**
+     * Releases the players when their freeze ends.
+     */
+    private final FreezeScheduler freezeScheduler;
+
+    /**
+     * Creates the players' threads (virtual threads if the configuration asks for them).
+     */
+    private final PlayerThreadFactory playerThreads;
+
+    /**
+     * Random choices of cards and slots.
+     */
+    private final Random random;
+
+    /**
+     * A buffer of table size for slots or cards on the table, reused by the dealer thread.
+     */
+    private final int[] slotsBuffer;
+
+    /**
+     * A buffer of table size for the cards placed on the table together, reused by the dealer thread.
+     */
+    private final int[] cardsBuffer;
     
     public Dealer(Env env, Table table, Player[] players) {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
-        playersSetsToCheck = new LinkedBlockingQueue<Integer>(players.length);
-        cardsToRemove = new LinkedList<Integer>();
-        hintsForAI = new ArrayList<Integer>();
-        changingCards = true;
-        cardsLocker = new Object();
+        random = new Random();
+        deck = new int[env.config.deckSize];
+        for(int card = 0; card < deck.length; card++)
+        	returnToDeck(card);
+        setsInPlay = new SetsInPlay(env.util, env.catalogue, env.config.deckSize);
+        ClaimQueue.WaitStrategy strategy = ClaimQueue.WaitStrategy.forName(env.config.claimWaitStrategy);
+        if(strategy == null) {
+        	env.logger.severe("unknown claim wait strategy " + env.config.claimWaitStrategy + ", parking instead.");
+        	strategy = ClaimQueue.WaitStrategy.PARK;
+        }
+        playersSetsToCheck = new ClaimQueue(players.length, strategy);
+        cardsToRemove = new int[env.config.tableSize];
+        hintsForAI = Collections.emptyList();
+        boardGate = new BoardGate();
+        freezeScheduler = new FreezeScheduler(env);
+        playerThreads = new PlayerThreadFactory(env);
+        slotsBuffer = new int[env.config.tableSize];
+        cardsBuffer = new int[env.config.tableSize];
+        deadlines = new DeadlineScheduler(FREEZE + players.length);
+        pendingClaims = new ArrayList<Claim>(players.length);
+        awardedSlots = new AtomicIntegerArray(env.config.tableSize);
+        claimedCards = new int[env.config.featureSize];
     }
 
     /**
@@ -85,9 +172,11 @@ public class Dealer implements Runnable {
         Thread[] playersThreads = new Thread[players.length];
         
 	    for(int i = 0; i<players.length; i++) { //initialize players threads
-	        playersThreads[i] = new Thread(players[i], "player_"+i);
+	        playersThreads[i] = playerThreads.newThread(players[i], "player_"+i);
 	        playersThreads[i].start();
 	    }
+	    Thread freezeThread = new Thread(freezeScheduler, "freeze-scheduler");
+	    freezeThread.start();
         	
         while (!shouldFinish()) {
             placeCardsOnTable();
@@ -101,6 +190,9 @@ public class Dealer implements Runnable {
 			try {playersThreads[i].join();} 
         	catch (InterruptedException e) {} 
         }
+        freezeScheduler.terminate();
+        try {freezeThread.join();} 
+        catch (InterruptedException e) {} 
         
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
     }
@@ -111,7 +203,7 @@ public class Dealer implements Runnable {
     private void timerLoop() {
         while (!terminate && System.currentTimeMillis() < reshuffleTime) {
             sleepUntilWokenOrTimeout();
-            updateTimerDisplay(false);
+            runDueDeadlines();
             removeCardsFromTable();
             placeCardsOnTable();
         }
@@ -124,6 +216,7 @@ public class Dealer implements Runnable {
     	terminate = true;
     	for(Player player: players)
     		player.terminate();
+    	freezeScheduler.terminate();
     	dealerThread.interrupt();
     }
 
@@ -133,7 +226,7 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !setsInPlay.hasSets();
     }
 
     /**
@@ -146,13 +239,23 @@ public class Dealer implements Runnable {
      * @post - ui shows empty slots where the cards used to be
      */
     protected void removeCardsFromTable() {
-        boolean wasRemoved = !cardsToRemove.isEmpty();
-    	if(!cardsToRemove.isEmpty()) {
-    		changingCards = true;
-		    while(!cardsToRemove.isEmpty())
-		    	table.removeCard(cardsToRemove.remove(0));
+        boolean wasRemoved = cardsToRemoveCount > 0;
+    	if(cardsToRemoveCount > 0) {
+    		boardGate.close();
+    		int slots = 0;
+		    for(int i = 0; i < cardsToRemoveCount; i++) {
+		    	int slot = cardsToRemove[i];
+		    	awardedSlots.set(slot, 0);
+		    	int card = table.cardAt(slot);
+		    	if(card != Table.NONE) { //the card leaves the game
+		    		setsInPlay.remove(card);
+		    		slotsBuffer[slots++] = slot;
+		    	}
+		    }
+		    cardsToRemoveCount = 0;
+		    table.removeCards(slotsBuffer, slots);
     	}
-        if(wasRemoved && deck.isEmpty())
+        if(wasRemoved && deckSize == 0)
             updateHints();
         
     }
@@ -161,15 +264,18 @@ public class Dealer implements Runnable {
      * Check if any cards can be removed from the deck and placed on the table.
      */
     private void placeCardsOnTable() {
-    	List<Integer> slotsToPlaceCard = table.getEmptySlots();
-    	Random random = new Random();
-    	boolean wasPlaced = !slotsToPlaceCard.isEmpty() && !deck.isEmpty(); //true if dealer needs to place cards
-
-		while(!slotsToPlaceCard.isEmpty() && !deck.isEmpty()) {
-		    Integer emptyRandomSlot = slotsToPlaceCard.remove(random.nextInt(slotsToPlaceCard.size()));
-		    Integer randomCard = deck.remove(random.nextInt(deck.size()));
-		    table.placeCard(randomCard, emptyRandomSlot);
+    	int emptySlots = table.getEmptySlots(slotsBuffer);
+    	boolean wasPlaced = emptySlots > 0 && deckSize > 0; //true if dealer needs to place cards
+
+		int placed = 0;
+		while(placed < emptySlots && deckSize > 0) { //pair a random empty slot with the top card of the shuffled deck
+		    int index = placed + random.nextInt(emptySlots - placed);
+		    int emptyRandomSlot = slotsBuffer[index];
+		    slotsBuffer[index] = slotsBuffer[placed];
+		    slotsBuffer[placed] = emptyRandomSlot;
+		    cardsBuffer[placed++] = deck[--deckSize];
 		}
+		table.placeCards(cardsBuffer, slotsBuffer, placed);
     	
     	if(wasPlaced) { //reset timer, print hints if needed and update hints for the AI
     		updateTimerDisplay(true);
@@ -183,10 +289,8 @@ public class Dealer implements Runnable {
     }
 
     	private void updateHints() { //update hints for AI + reshuffles if needed + notify
-    		Random random = new Random();
-    		hintsForAI.clear();
-    		List<Integer> cardsOnTable = Arrays.stream(table.slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-    		List<int[]> randomSet = env.util.findSets(cardsOnTable, 1);
+    		List<Integer> hintsForAI = new ArrayList<Integer>();
+    		List<int[]> randomSet = table.snapshot().sets();
     		int[] set = new int[0];
     		
     		if(!randomSet.isEmpty()) { //there is no set on table
@@ -198,7 +302,7 @@ public class Dealer implements Runnable {
     			reshuffleTime = 0;
 
     		for(int i = 0; i<set.length; i++) //add set to hintsForAI
-    			hintsForAI.add(table.cardToSlot[set[i]]);
+    			hintsForAI.add(table.slotOf(set[i]));
     		
     		int hintsSize = Integer.min(env.config.featureSize+RANDOM_ADDITION,env.config.tableSize);
     		while(hintsForAI.size() < hintsSize) { //fill hintsForAI list with random cards in addition to the set
@@ -207,102 +311,192 @@ public class Dealer implements Runnable {
     				hintsForAI.add(randomSlot);
     		}
     		
-    		changingCards = false; //notify all players when done changing cards
-    		synchronized(cardsLocker) { 
-    			cardsLocker.notifyAll();
-    		}
+    		this.hintsForAI = Collections.unmodifiableList(hintsForAI); //publish the new hints to the AI threads
+    		
+    		boardGate.open(); //wake all players when done changing cards
+    		for(Player player : players) //and let the AI players react to the new board
+    			player.boardChanged();
     	}
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until the next deadline or until the thread is awakened by a claim, then resolve all pending claims.
      */
     private void sleepUntilWokenOrTimeout() {
-    	long newTimeMillis = reshuffleTime - System.currentTimeMillis();
-    	boolean warn = newTimeMillis <= env.config.turnTimeoutWarningMillis;
-    	long remainedMillisToUpdateTime = (newTimeMillis) % 1000;
+    	long timeoutMillis = deadlines.nextDeadline() - System.currentTimeMillis();
     	
-    	
-    	Integer playerToCheck = null;
+    	Claim claim = null;
     	try {
-    		playerToCheck = playersSetsToCheck.poll(warn ? 30 : remainedMillisToUpdateTime+1, TimeUnit.MILLISECONDS);
-            //wait until there is an element in playersSetsToCheck, or need to update timer display
+    		claim = timeoutMillis > 0 ? playersSetsToCheck.poll(timeoutMillis, TimeUnit.MILLISECONDS) : playersSetsToCheck.poll();
+            //wait until there is an element in playersSetsToCheck, or the next deadline is due
     	} catch (InterruptedException e) {}
     	
-    	if(playerToCheck != null) { //if player claimed a set, check his set and give him point or penalty
-    		List<Integer> thisPlayerTokens = table.getPlayerTokens(playerToCheck);
-        	if(thisPlayerTokens.size() == 3) {
-        		List<Integer> tokensToCards = new LinkedList<Integer>();
-        		for(Integer x : thisPlayerTokens)
-        			tokensToCards.add(table.slotToCard[x]);
-        		boolean isSet = env.util.findSets(tokensToCards, 1).size() == 1;
-        		if(isSet) { 
-        			for(Integer slotID: thisPlayerTokens)
-        				cardsToRemove.add(slotID);
-        			players[playerToCheck].point();
-        		}
-        		else
-        			players[playerToCheck].penalty();
-        		
-        		
-        	}
-        	players[playerToCheck].setCheckingSet(false);
-        		
+    	if(claim != null) {
+    		pendingClaims.add(claim);
+    		resolveClaims();
     	}
     		
     }
 
     /**
-     * Reset and/or update the countdown and the countdown display.
+     * Drains all the pending claims and resolves them in the order they were made.
+     */
+    protected void resolveClaims() {
+    	playersSetsToCheck.drainTo(pendingClaims);
+    	pendingClaims.sort(BY_TIME);
+    	for(int i = 0; i < pendingClaims.size(); i++)
+    		resolveClaim(pendingClaims.get(i));
+    	pendingClaims.clear();
+    }
+
+    /**
+     * Check a player's claim and give him point or penalty. Only the first valid set of claims sharing slots wins,
+     * the later claims on its slots are released without penalty.
+     *
+     * @param claim - the claim.
+     */
+    private void resolveClaim(Claim claim) {
+    	boolean lost = !table.isCurrent(claim.epoch(), claim.slots); //a claim on cards which were replaced since is released without penalty
+    	for(int i = 0; !lost && i < claim.slots.length; i++)
+    		lost = awardedSlots.get(claim.slots[i]) != 0;
+
+    	if(!lost) {
+    		if(tokensFormSet(claim.slots, claim.slots.length)) { 
+    			for(int slot : claim.slots)
+    				markForRemoval(slot);
+    			players[claim.player].point();
+    		}
+    		else
+    			players[claim.player].penalty();
+    	}
+    	players[claim.player].setCheckingSet(false);
+    	freezeScheduler.freeze(players[claim.player], players[claim.player].getFreezeTime()); //release the player when the freeze ends
+    	deadlines.schedule(FREEZE + claim.player, System.currentTimeMillis()); //display the freeze
+    }
+
+    /**
+     * Handles all the deadlines which are due.
+     */
+    private void runDueDeadlines() {
+    	long now = System.currentTimeMillis();
+    	for(int key = deadlines.pollDue(now); key != -1; key = deadlines.pollDue(now)) {
+    		if(key == TICK)
+    			updateTimerDisplay(false);
+    		else if(key >= FREEZE)
+    			updateFreezeDisplay(key - FREEZE);
+    		//the reshuffle deadline only wakes the dealer, the timer loop ends by itself
+    	}
+    }
+
+    /**
+     * Checks if the cards under a player's tokens form a legal set on the table.
+     *
+     * @param slots - the slots the player placed tokens on.
+     * @param count - the number of slots.
+     * @return - true iff the cards in the slots are a legal set.
+     */
+    protected boolean tokensFormSet(int[] slots, int count) {
+    	if(count != claimedCards.length)
+    		return false;
+    	for(int i = 0; i < count; i++)
+    		if((claimedCards[i] = table.cardAt(slots[i])) == Table.NONE)
+    			return false;
+    	return env.util.testSet(claimedCards);
+    }
+
+    /**
+     * Reset and/or update the countdown and the countdown display, and schedule the next display update.
      */
     private void updateTimerDisplay(boolean reset) {
+    	long now = System.currentTimeMillis();
     	if(reset) {
-    		if(env.config.turnTimeoutMillis > 0) //regular mode (timer goes down)
-    			reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis+700; //the +700 is to fix the display of second 59
+    		if(env.config.turnTimeoutMillis > 0) { //regular mode (timer goes down)
+    			reshuffleTime = now + env.config.turnTimeoutMillis+700; //the +700 is to fix the display of second 59
+    			deadlines.schedule(RESHUFFLE, reshuffleTime);
+    		}
     		else //bonus mode
-    			lastReshuffle = System.currentTimeMillis();
+    			lastReshuffle = now;
     	}
     		    
     	if(env.config.turnTimeoutMillis > 0) { //if on regular mode display timer
-    		long newTimeMillis = reshuffleTime - System.currentTimeMillis();
+    		long newTimeMillis = reshuffleTime - now;
         	boolean warn = newTimeMillis <= env.config.turnTimeoutWarningMillis;
+        	if(newTimeMillis > 0) //next update when the displayed second (or warning milliseconds) changes
+        		deadlines.schedule(TICK, now + (warn ? WARNING_TICK_MILLIS : newTimeMillis % 1000 + 1));
         	if(newTimeMillis<0)
         		newTimeMillis=0;
     		env.ui.setCountdown(newTimeMillis, warn);
     	}
-    	else if(env.config.turnTimeoutMillis == 0) //if on bonus mode displays time elapsed from last reshuffle
-    		env.ui.setElapsed(System.currentTimeMillis() - lastReshuffle);
-    		
-    	for(int i = 0; i<players.length; i++) { //display player's freeze time and notify when his freeze time is over
-    		long freezeMillis = players[i].getFreezeTime() - System.currentTimeMillis();
-    		env.ui.setFreeze(i, freezeMillis);
-    		if(freezeMillis <= 0 && !players[i].isCheckingSet()) //check that we don't notify while the dealer is checking the player's set
-    			synchronized(players[i]) {
-    				players[i].notifyAll();
-    			}
+    	else if(env.config.turnTimeoutMillis == 0) { //if on bonus mode displays time elapsed from last reshuffle
+    		long elapsedMillis = now - lastReshuffle;
+    		deadlines.schedule(TICK, now + 1000 - elapsedMillis % 1000);
+    		env.ui.setElapsed(elapsedMillis);
     	}
     }
 
+    /**
+     * Update the display of a player's freeze time (the freeze scheduler releases the player when it is over).
+     *
+     * @param player - the player id.
+     */
+    private void updateFreezeDisplay(int player) {
+    	long now = System.currentTimeMillis();
+    	long freezeMillis = players[player].getFreezeTime() - now;
+    	env.ui.setFreeze(player, freezeMillis);
+    	if(freezeMillis > 0) //next update when the displayed second changes
+    		deadlines.schedule(FREEZE + player, now + ((freezeMillis - 1) % 1000) + 1);
+    }
+
     /**
      * Returns all the cards from the table to the deck.
      */
     private void removeAllCardsFromTable() {
-    	changingCards = true;
-	    Random random = new Random();
-	    List<Integer> cardsOnTable = table.getCardsOnTable();
-	    while(!cardsOnTable.isEmpty()) {
-	    	Integer cardToRemove = cardsOnTable.remove(random.nextInt(cardsOnTable.size()));
-	    	deck.add(cardToRemove);
-	    	table.removeCard(table.cardToSlot[cardToRemove]);
+    	boardGate.close();
+	    int cardsOnTable = table.getCardsOnTable(cardsBuffer);
+	    for(int i = 0; i < cardsOnTable; i++) {
+	    	returnToDeck(cardsBuffer[i]);
+	    	slotsBuffer[i] = table.slotOf(cardsBuffer[i]);
 	    }
+	    table.removeCards(slotsBuffer, cardsOnTable);
     	
     }
 
     /**
-     * Returns the slots which soon will be empty
+     * Puts a card back in the deck at a random position, so the deck stays shuffled.
+     *
+     * @param card - the card id.
+     */
+    private void returnToDeck(int card) {
+    	int position = random.nextInt(deckSize + 1);
+    	deck[deckSize++] = deck[position];
+    	deck[position] = card;
+    }
+
+    /**
+     * Marks a slot as awarded, its card will be removed on the next removeCardsFromTable.
+     *
+     * @param slot - the slot
+     */
+    void markForRemoval(int slot) {
+        cardsToRemove[cardsToRemoveCount++] = slot;
+        awardedSlots.set(slot, 1);
+    }
+
+    /**
+     * Returns the number of slots which soon will be empty
      * 
-     * @return List of the slots which soon will be empty
+     * @return the number of slots which soon will be empty
+     */
+    public int getCardsToRemoveCount() {
+        return cardsToRemoveCount;
+    }
+
+    /**
+     * Checks if the card in a slot was awarded to a player and is about to be removed
+     *
+     * @param slot - the slot
+     * @return true iff the slot will soon be empty
      */
-    public List<Integer> getCardsToRemove() {
-        return cardsToRemove;
+    public boolean isRemoving(int slot) {
+        return awardedSlots.get(slot) != 0;
     }
     
     
@@ -311,20 +505,21 @@ public class Dealer implements Runnable {
     }
     
     
-    public boolean isChangingCards() {
-        return changingCards;
+    public BoardGate getBoardGate() {
+        return boardGate;
+    }
+    
+    public PlayerThreadFactory getPlayerThreadFactory() {
+        return playerThreads;
     }
     
-    public Object getCardsLocker() {
-        return cardsLocker;
-    }     
     /**
      * Returns the queue of players that have sets to check
      * 
-     * @return BlockingQueue of players IDs
+     * @return ClaimQueue of the players' claims
      */
     
-    public BlockingQueue<Integer> getPlayersSetsToCheck() {
+    public ClaimQueue getPlayersSetsToCheck() {
         return playersSetsToCheck;
     }
     /**
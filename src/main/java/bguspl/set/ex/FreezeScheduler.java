@@ -0,0 +1,113 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import bguspl.set.Env;
+
+/**
+ * This class releases frozen players: it keeps the freeze deadline of every frozen player in a delay queue, and its
+ * thread wakes exactly the player whose freeze ended, when it ends.
+ */
+public class FreezeScheduler implements Runnable {
+
+    /**
+     * The freeze of a player, due at its deadline (reused for all the freezes of the player).
+     */
+    private static class Freeze implements Delayed {
+
+        private final Player player;
+        private long deadline;
+
+        private Freeze(Player player) {
+            this.player = player;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadline, ((Freeze) other).deadline);
+        }
+    }
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The freezes which did not end yet.
+     */
+    private final DelayQueue<Freeze> freezes;
+
+    /**
+     * Mapping between a player id and the freeze of the player (null until first frozen).
+     */
+    private final Freeze[] playerFreezes;
+
+    /**
+     * True iff the scheduler should be terminated due to an external event.
+     */
+    private volatile boolean terminate;
+
+    /**
+     * The thread of the scheduler.
+     */
+    private Thread schedulerThread;
+
+    /**
+     * The class constructor.
+     *
+     * @param env - the environment object.
+     */
+    public FreezeScheduler(Env env) {
+        this.env = env;
+        this.freezes = new DelayQueue<Freeze>();
+        this.playerFreezes = new Freeze[env.config.players];
+    }
+
+    /**
+     * The scheduler thread starts here (releases every player when its freeze ends).
+     */
+    @Override
+    public void run() {
+        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
+        schedulerThread = Thread.currentThread();
+        while (!terminate) {
+            try {
+                freezes.take().player.unfreeze();
+            } catch (InterruptedException ignored) {}
+        }
+        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
+    }
+
+    /**
+     * Schedules the release of a player, replacing its previous freeze (if still pending).
+     *
+     * @param player   - the player.
+     * @param deadline - the time (in milliseconds) the player's freeze ends (released right away if passed).
+     */
+    public void freeze(Player player, long deadline) {
+        Freeze freeze = playerFreezes[player.id];
+        if (freeze == null)
+            freeze = playerFreezes[player.id] = new Freeze(player);
+        freezes.remove(freeze); //the deadline orders the queue, so it is only changed while not queued
+        freeze.deadline = deadline;
+        freezes.add(freeze);
+    }
+
+    /**
+     * Called when the game should be terminated due to an external event.
+     */
+    public void terminate() {
+        terminate = true;
+        if (schedulerThread != null)
+            schedulerThread.interrupt();
+    }
+}
@@ -0,0 +1,54 @@
+package bguspl.set.ex;
+
+import java.util.Random;
+
+/**
+ * The original AI: claims random slots among the dealer's hints (a set on the table padded with random slots), or
+ * among all the cards on the board if there are not enough hinted cards. Most of its claims are penalized.
+ */
+public class HintsStrategy implements AiStrategy {
+
+    private final Dealer dealer;
+    private final Random random;
+
+    /**
+     * The slots the move is drawn from (reused between moves).
+     */
+    private final int[] candidates;
+
+    /**
+     * The class constructor.
+     *
+     * @param dealer    - the dealer publishing the hints.
+     * @param random    - the AI's random generator.
+     * @param tableSize - the number of slots on the table.
+     */
+    public HintsStrategy(Dealer dealer, Random random, int tableSize) {
+        this.dealer = dealer;
+        this.random = random;
+        this.candidates = new int[tableSize];
+    }
+
+    @Override
+    public boolean chooseMove(BoardSnapshot board, int[] move) {
+        int count = 0;
+        for (int slot : dealer.getHintsForAI())
+            if (board.cardAt(slot) != Table.NONE)
+                candidates[count++] = slot;
+        if (count < move.length) {
+            count = 0;
+            for (int slot = 0; slot < board.slots(); slot++)
+                if (board.cardAt(slot) != Table.NONE)
+                    candidates[count++] = slot;
+            if (count < move.length)
+                return false;
+        }
+        for (int i = 0; i < move.length; i++) { // partial Fisher-Yates shuffle of the candidates
+            int j = i + random.nextInt(count - i);
+            int slot = candidates[j];
+            candidates[j] = candidates[i];
+            move[i] = candidates[i] = slot;
+        }
+        return true;
+    }
+}
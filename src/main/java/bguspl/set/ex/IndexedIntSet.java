@@ -0,0 +1,106 @@
+package bguspl.set.ex;
+
+/**
+ * A set of the ints 0 to capacity - 1, kept as a dense array with a position map, so adding, removing and picking
+ * the i-th member all take constant time.
+ */
+public class IndexedIntSet {
+
+    /**
+     * The members of the set (only the first size entries are used).
+     */
+    private final int[] members;
+
+    /**
+     * Mapping between a value and its index in members (-1 if not a member).
+     */
+    private final int[] positions;
+
+    /**
+     * The number of members.
+     */
+    private int size;
+
+    /**
+     * The class constructor, creates an empty set.
+     *
+     * @param capacity - the values the set can hold are 0 to capacity - 1.
+     */
+    public IndexedIntSet(int capacity) {
+        this.members = new int[capacity];
+        this.positions = new int[capacity];
+        for(int i = 0; i < capacity; i++)
+            positions[i] = -1;
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value - the value.
+     * @return - true iff the value was not a member before.
+     */
+    public boolean add(int value) {
+        if(positions[value] != -1)
+            return false;
+        positions[value] = size;
+        members[size++] = value;
+        return true;
+    }
+
+    /**
+     * Removes a value from the set, moving the last member to its index.
+     *
+     * @param value - the value.
+     * @return - true iff the value was a member before.
+     */
+    public boolean remove(int value) {
+        int position = positions[value];
+        if(position == -1)
+            return false;
+        int last = members[--size];
+        members[position] = last;
+        positions[last] = position;
+        positions[value] = -1;
+        return true;
+    }
+
+    /**
+     * Checks if a value is a member of the set.
+     *
+     * @param value - the value.
+     * @return - true iff the value is a member.
+     */
+    public boolean contains(int value) {
+        return positions[value] != -1;
+    }
+
+    /**
+     * Returns the number of members.
+     *
+     * @return - the size of the set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a member by index (the order changes as members are removed).
+     *
+     * @param index - the index, 0 <= index < size().
+     * @return - the member at the index.
+     */
+    public int get(int index) {
+        return members[index];
+    }
+
+    /**
+     * Copies the members.
+     *
+     * @param values - an array of at least size() entries to copy the members into.
+     * @return - the number of members copied.
+     */
+    public int copyTo(int[] values) {
+        System.arraycopy(members, 0, values, 0, size);
+        return size;
+    }
+}
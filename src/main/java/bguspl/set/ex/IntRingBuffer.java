@@ -0,0 +1,153 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded blocking queue of ints kept in a ring buffer, so putting and taking values never allocates.
+ */
+public class IntRingBuffer {
+
+    /**
+     * The value of peek() when the queue is empty.
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * The ring of values (the queued values are size entries from head, wrapping around).
+     */
+    private final int[] values;
+
+    /**
+     * The index of the first queued value.
+     */
+    private int head;
+
+    /**
+     * The number of queued values.
+     */
+    private int size;
+
+    /**
+     * The lock guarding the queue.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when a value is put.
+     */
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * Signalled when values are taken or cleared.
+     */
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * The class constructor.
+     *
+     * @param capacity - the maximal number of queued values.
+     */
+    public IntRingBuffer(int capacity) {
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Adds a value at the end of the queue, waiting while the queue is full.
+     *
+     * @param value - the value.
+     * @throws InterruptedException - if the thread is interrupted while waiting.
+     */
+    public void put(int value) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while(size == values.length)
+                notFull.await();
+            values[(head + size++) % values.length] = value;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the value at the head of the queue, waiting while the queue is empty.
+     *
+     * @return - the value.
+     * @throws InterruptedException - if the thread is interrupted while waiting.
+     */
+    public int take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while(size == 0)
+                notEmpty.await();
+            int value = values[head];
+            head = (head + 1) % values.length;
+            size--;
+            notFull.signal();
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the value at the head of the queue without removing it.
+     *
+     * @return - the value, or EMPTY if the queue is empty.
+     */
+    public int peek() {
+        lock.lock();
+        try {
+            return size == 0 ? EMPTY : values[head];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if a value is in the queue.
+     *
+     * @param value - the value.
+     * @return - true iff the value is queued.
+     */
+    public boolean contains(int value) {
+        lock.lock();
+        try {
+            for(int i = 0; i < size; i++)
+                if(values[(head + i) % values.length] == value)
+                    return true;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of queued values.
+     *
+     * @return - the size of the queue.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all the values from the queue.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            head = 0;
+            size = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package bguspl.set.ex;
 
-import java.util.List;
 import java.util.Random;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 
 import bguspl.set.Env;
@@ -39,7 +39,7 @@ public class Player implements Runnable {
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
      */
-    private Thread aiThread;
+    private volatile Thread aiThread;
 
     /**
      * True iff the player is human (not a computer player).
@@ -64,14 +64,45 @@ public class Player implements Runnable {
     /**
      * Waiting actions queue
      */
-    private final BlockingQueue<Integer> waitingActions;
+    private final IntRingBuffer waitingActions;
     
     /**
      * Is player sleeping
      */
-    private long freezeTime = 0;
+    private volatile long freezeTime = 0;
     
-    private boolean checkingSet;
+    private volatile boolean checkingSet;
+
+    /**
+     * The lock the player thread waits on while its set is checked and while it is frozen.
+     */
+    private final ReentrantLock freezeLock = new ReentrantLock();
+
+    /**
+     * Signalled when the player's freeze is over.
+     */
+    private final Condition unfrozen = freezeLock.newCondition();
+
+    /**
+     * True iff something happened that the AI should react to (the cards changed or the freeze ended).
+     * Initially true, so the AI makes a move on the first board.
+     */
+    private volatile boolean aiEvent = true;
+
+    /**
+     * The board epoch the AI's current move was chosen on (its keys are dropped once the cards change).
+     */
+    private volatile long aiMoveEpoch;
+
+    /**
+     * The player's claim, reused for every set the player claims (not modified while the dealer checks it).
+     */
+    private final Claim claim;
+
+    /**
+     * How long the player thread waits for the AI thread to exit before interrupting it again.
+     */
+    private static final long AI_JOIN_MILLIS = 100;
     /**
      * The class constructor.
      *
@@ -86,11 +117,12 @@ public class Player implements Runnable {
         this.table = table;
         this.id = id;
         this.human = human;
-        waitingActions = new LinkedBlockingQueue<Integer>(env.config.featureSize);
+        waitingActions = new IntRingBuffer(env.config.featureSize);
         
         this.dealer = dealer;
         
         checkingSet = false;
+        claim = new Claim(id, new int[env.config.featureSize]);
     }
 
     /**
@@ -103,81 +135,181 @@ public class Player implements Runnable {
         if (!human) createArtificialIntelligence();
 
         while (!terminate) {
-	        Integer slot = null;
+	        int slot = IntRingBuffer.EMPTY;
 	        try {
-		        synchronized(dealer.getCardsLocker()) { //wait while dealer is changing cards
-			        while(dealer.isChangingCards()) {
-			        	dealer.getCardsLocker().wait();
-			        }
-		        }
-			        
+		        dealer.getBoardGate().awaitOpen(); //wait while dealer is changing cards
 		        
 	        	slot = waitingActions.take(); //wait if there is no action to take
 	        } 
 	        catch (InterruptedException e) {}
+	        if(!human && table.epoch() != aiMoveEpoch) //a key of an AI move chosen on an older board
+	        	slot = IntRingBuffer.EMPTY;
 	        
-	        if(slot != null) {
-	        	List<Integer> thisPlayerTokens = table.getPlayerTokens(id);
-	        	boolean tokenExists = thisPlayerTokens.indexOf(slot) != -1;
-
-		        if(tokenExists)
-		        	table.removeToken(id, slot);
-		        else if(dealer.getCardsToRemove().indexOf(slot) == -1) {
-		        	table.placeToken(id, slot);
-		        	if(thisPlayerTokens.size() == 3) {
-		        		checkingSet = true;
-		        		dealer.getPlayersSetsToCheck().offer(id);
-		        	    try {
-                            synchronized(this) { //wait while dealer is checking this player's set, until freeze time is over
-                                while(checkingSet) 
-                                    this.wait();
-                            }
-                        }
-                        catch (InterruptedException e) {}
-		        	    waitingActions.clear();	
-		        	}
-		        }
+	        if(slot != IntRingBuffer.EMPTY && handleAction(slot)) {
+	        	freezeLock.lock();
+	        	try { //wait while dealer is checking this player's set, until the freeze scheduler releases it
+	        		while(checkingSet || freezeTime > System.currentTimeMillis()) 
+	        			unfrozen.await();
+	        	}
+	        	catch (InterruptedException e) {}
+	        	finally {
+	        		freezeLock.unlock();
+	        	}
+	        	waitingActions.clear();	
+	        	if(!human) //the freeze is over, let the AI make its next move
+	        		signalArtificialIntelligence();
         	}
         }
-        if (!human) try { aiThread.join(); } catch (InterruptedException ignored) {}
+        while (!human && aiThread.isAlive()) { //the AI may be blocked pressing keys nobody takes anymore
+        	aiThread.interrupt();
+        	try { aiThread.join(AI_JOIN_MILLIS); } catch (InterruptedException ignored) {}
+        }
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
-     * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * Toggles the player's token on a slot, and claims a set when the player has placed all of its tokens.
+     *
+     * @param slot - the slot of the key pressed.
+     * @return - true iff the player claimed a set (and should wait for the dealer's verdict).
+     */
+    protected boolean handleAction(int slot) {
+    	if(table.hasToken(id, slot)) {
+    		table.removeToken(id, slot);
+    		return false;
+    	}
+    	if(dealer.isRemoving(slot))
+    		return false;
+
+    	table.placeToken(id, slot);
+    	long epoch = table.epoch(); //read before the tokens, so a card replaced after it makes the claim stale
+    	if(table.getPlayerTokens(id, claim.slots) != env.config.featureSize)
+    		return false;
+    	checkingSet = true;
+    	claim.stamp(epoch, System.nanoTime());
+    	dealer.getPlayersSetsToCheck().offer(claim);
+    	return true;
+    }
+
+    /**
+     * Creates an additional thread for an AI (computer) player. The thread sleeps until the cards on the table change
+     * or the player's freeze ends, then chooses a move from a snapshot of the board with its strategy, thinks for its
+     * reaction time and presses the keys of the move once, so it only uses the CPU when there is something new to
+     * react to.
      */
     private void createArtificialIntelligence() {
-        // note: this is a very very smart AI (!)
-        aiThread = new Thread(() -> {
+        int[] aiTokens = new int[env.config.featureSize];
+        int[] move = new int[env.config.featureSize];
+        Random random = new Random();
+        AiStrategy strategy = createStrategy(random);
+        ReactionTime reactionTime = ReactionTime.create(env, random);
+        aiThread = dealer.getPlayerThreadFactory().newThread(() -> {
             env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
             while (!terminate) {
+            	while(!aiEvent && !terminate) //sleep until the board changes or the freeze ends
+            		LockSupport.park(this);
+            	aiEvent = false;
+            	if(checkingSet || freezeTime > System.currentTimeMillis()) //the end of the freeze wakes the AI again
+            		continue;
+            	try { dealer.getBoardGate().awaitOpen(); } 
+            	catch (InterruptedException e) { continue; }
 
-            	Random random = new Random();
-            	List<Integer> thisPlayerTokens = table.getPlayerTokens(id);
-            	if(thisPlayerTokens.size() == 3 && !waitingActions.contains(thisPlayerTokens.get(0))) { //if ai has 3 tokens, he needs to remove one of them, so he presses this slot once
-            		keyPressed(thisPlayerTokens.get(0));
-            	}
-            	else {
-            		List<Integer> hintsForAI = dealer.getHintsForAI();
-            		if(hintsForAI.size() > 0)
-            			keyPressed(hintsForAI.get(random.nextInt(hintsForAI.size())));
-            		else //ensure the ai fills the queue if there are no hints
-            			keyPressed(random.nextInt(env.config.tableSize));
-            	}
+            	BoardSnapshot board = table.snapshot();
+            	if(!strategy.chooseMove(board, move))
+            		continue;
+            	long thinkTime = reactionTime.nextNanos();
+            	long deadline = System.nanoTime() + thinkTime;
+            	while(!aiEvent && !terminate && (thinkTime = deadline - System.nanoTime()) > 0) //think, unless the board changes meanwhile
+            		LockSupport.parkNanos(this, thinkTime);
+            	if(aiEvent || terminate || table.epoch() != board.epoch) //the move is on an old board
+            		continue;
+            	aiMoveEpoch = board.epoch;
+            	waitingActions.clear(); //drop the keys of a move on an older board
+            	pressMove(move, aiTokens);
             }
             env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
         }, "computer-" + id);
         aiThread.start();
     }
 
+    /**
+     * Presses the keys of an AI move: first lifts the tokens that are not part of the move, then places the missing
+     * ones (the last one claims the set). If the whole move is placed already, lifts one of its tokens and places it
+     * again to claim it once more.
+     *
+     * @param move     - the slots of the move.
+     * @param aiTokens - a buffer for the player's tokens.
+     * @return - true iff all the keys were pressed, false if the game was terminated meanwhile.
+     */
+    private boolean pressMove(int[] move, int[] aiTokens) {
+    	int tokens = table.getPlayerTokens(id, aiTokens);
+    	for(int i = 0; i < tokens; i++)
+    		if(indexOf(move, aiTokens[i]) == -1 && (terminate || !keyPressed(aiTokens[i])))
+    			return false;
+    	int placed = 0;
+    	for(int slot : move)
+    		if(indexOf(aiTokens, tokens, slot) == -1) {
+    			if(terminate || !keyPressed(slot))
+    				return false;
+    			placed++;
+    		}
+    	if(placed == 0 && move.length > 0)
+    		for(int press = 0; press < 2; press++)
+    			if(terminate || !keyPressed(move[0]))
+    				return false;
+    	return true;
+    }
+
+    /**
+     * Creates the AI's strategy from the configuration.
+     *
+     * @param random - the AI's random generator.
+     * @return - the strategy.
+     */
+    private AiStrategy createStrategy(Random random) {
+    	if(env.config.aiStrategy.equalsIgnoreCase("solver"))
+    		return new SolverStrategy(env.util, random, env.config.tableSize);
+    	if(!env.config.aiStrategy.equalsIgnoreCase("hints"))
+    		env.logger.severe("unknown AI strategy " + env.config.aiStrategy + ", using hints instead.");
+    	return new HintsStrategy(dealer, random, env.config.tableSize); // note: this is a very very smart AI (!)
+    }
+
+    private static int indexOf(int[] slots, int slot) {
+    	return indexOf(slots, slots.length, slot);
+    }
+
+    private static int indexOf(int[] slots, int count, int slot) {
+    	for(int i = 0; i < count; i++)
+    		if(slots[i] == slot)
+    			return i;
+    	return -1;
+    }
+
+    /**
+     * Wakes the AI thread to make a new move (the cards changed or the player's freeze ended).
+     */
+    private void signalArtificialIntelligence() {
+    	aiEvent = true;
+    	Thread ai = aiThread;
+    	if(ai != null)
+    		LockSupport.unpark(ai);
+    }
+
+    /**
+     * Called by the dealer after it changed the cards on the table, when the board is open again.
+     */
+    public void boardChanged() {
+    	if(!human)
+    		signalArtificialIntelligence();
+    }
+
     /**
      * Called when the game should be terminated due to an external event.
      */
     public void terminate() {
     	terminate = true;
     	if(aiThread != null)
-    		aiThread.interrupt();
+    		aiThread.interrupt(); //also unparks it
     	playerThread.interrupt();
     }
 
@@ -189,10 +321,18 @@ public class Player implements Runnable {
      * @pre - 0 <= waitingActions.size() <= waitingActions.capacity()
      * @post - 0 <= waitingActions.size() <= waitingActions.capacity() 
      * @post - waitingActions last object is slot
+     * @return - true iff the key was queued, false if the thread was interrupted while the queue was full (the
+     *           interrupt is kept, so the caller can stop pressing keys).
      */
-    public void keyPressed(int slot) {
-    	try {waitingActions.put(slot);} 
-    	catch (InterruptedException e) {}
+    public boolean keyPressed(int slot) {
+    	try {
+    		waitingActions.put(slot);
+    		return true;
+    	} 
+    	catch (InterruptedException e) {
+    		Thread.currentThread().interrupt();
+    		return false;
+    	}
     }
 
     /**
@@ -217,6 +357,19 @@ public class Player implements Runnable {
     	freezeTime = System.currentTimeMillis() + env.config.penaltyFreezeMillis;
     }
 
+    /**
+     * Wakes the player thread when its freeze is over (called by the freeze scheduler).
+     */
+    public void unfreeze() {
+    	freezeLock.lock();
+    	try {
+    		unfrozen.signalAll();
+    	}
+    	finally {
+    		freezeLock.unlock();
+    	}
+    }
+
     public int getScore() {
         return score;
     }
@@ -233,7 +386,7 @@ public class Player implements Runnable {
         return freezeTime;
     }
 
-    public BlockingQueue<Integer> getWaitingActions() {
+    public IntRingBuffer getWaitingActions() {
         return waitingActions;
     }
 }
@@ -0,0 +1,68 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.ThreadFactory;
+
+import bguspl.set.Env;
+
+/**
+ * This class creates the threads of the players and of the computer players: virtual threads when the configuration
+ * asks for them and the runtime has them (Java 21 or newer), platform threads otherwise. The virtual thread builder
+ * is looked up by reflection, so the game still compiles and runs on older runtimes. Note: the build targets Java 17,
+ * so the option has no effect there; only running on a Java 21 runtime (e.g. the jdk21 build profile) uses virtual
+ * threads.
+ * A virtual thread that blocks inside a synchronized block pins its carrier thread, so the code the player threads run
+ * blocks on java.util.concurrent locks rather than monitors: the key queue (IntRingBuffer), the player's freeze wait
+ * and the table's slot locks.
+ */
+public class PlayerThreadFactory implements ThreadFactory {
+
+    /**
+     * The factory of the virtual threads, or null if the threads are platform threads.
+     */
+    private final ThreadFactory virtualThreads;
+
+    /**
+     * The class constructor.
+     *
+     * @param env - the environment object.
+     */
+    public PlayerThreadFactory(Env env) {
+        ThreadFactory factory = null;
+        if (env.config.virtualThreads) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                env.logger.warning("virtual threads need Java 21 or newer, running the players on platform threads.");
+            }
+        }
+        this.virtualThreads = factory;
+    }
+
+    /**
+     * Checks if the threads are virtual threads.
+     *
+     * @return - true iff the factory creates virtual threads.
+     */
+    public boolean isVirtual() {
+        return virtualThreads != null;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        return virtualThreads != null ? virtualThreads.newThread(runnable) : new Thread(runnable);
+    }
+
+    /**
+     * Creates a named thread.
+     *
+     * @param runnable - the code the thread runs.
+     * @param name     - the name of the thread.
+     * @return - the thread (not started).
+     */
+    public Thread newThread(Runnable runnable, String name) {
+        Thread thread = newThread(runnable);
+        thread.setName(name);
+        return thread;
+    }
+}
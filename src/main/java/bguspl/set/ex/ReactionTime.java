@@ -0,0 +1,119 @@
+package bguspl.set.ex;
+
+import java.util.Random;
+
+import bguspl.set.Env;
+
+/**
+ * The think time of a computer player between seeing a board and pressing the keys of its move, drawn from a
+ * configurable distribution to model players of different skill.
+ */
+public class ReactionTime {
+
+    /**
+     * The distributions of the think time.
+     */
+    public enum Distribution {
+
+        /**
+         * Always the mean.
+         */
+        FIXED,
+
+        /**
+         * Uniform between mean - spread and mean + spread.
+         */
+        UNIFORM,
+
+        /**
+         * Exponential with the mean (memoryless, mostly fast with a long tail).
+         */
+        EXPONENTIAL,
+
+        /**
+         * Log-normal with the mean and a standard deviation of spread (the usual model of human reaction times).
+         */
+        LOGNORMAL;
+
+        /**
+         * Returns the distribution with a name.
+         *
+         * @param name - the name of the distribution in the configuration (case insensitive).
+         * @return - the distribution, or null if there is no distribution with the name.
+         */
+        public static Distribution forName(String name) {
+            for (Distribution distribution : values())
+                if (distribution.name().equalsIgnoreCase(name.trim()))
+                    return distribution;
+            return null;
+        }
+    }
+
+    private final Distribution distribution;
+    private final double meanMillis;
+    private final double spreadMillis;
+    private final Random random;
+
+    /**
+     * The parameters of the underlying normal distribution of LOGNORMAL.
+     */
+    private final double mu;
+    private final double sigma;
+
+    /**
+     * The class constructor.
+     *
+     * @param distribution - the distribution of the think time.
+     * @param meanMillis   - the mean think time in milliseconds.
+     * @param spreadMillis - the spread of the think time in milliseconds (ignored by FIXED and EXPONENTIAL).
+     * @param random       - the AI's random generator.
+     */
+    public ReactionTime(Distribution distribution, double meanMillis, double spreadMillis, Random random) {
+        this.distribution = distribution;
+        this.meanMillis = Math.max(0, meanMillis);
+        this.spreadMillis = Math.max(0, spreadMillis);
+        this.random = random;
+        double variance = this.meanMillis > 0 ? Math.log1p(this.spreadMillis * this.spreadMillis / (this.meanMillis * this.meanMillis)) : 0;
+        this.sigma = Math.sqrt(variance);
+        this.mu = Math.log(Math.max(Double.MIN_VALUE, this.meanMillis)) - variance / 2;
+    }
+
+    /**
+     * Creates the think time of a computer player from the configuration.
+     *
+     * @param env    - the environment object.
+     * @param random - the AI's random generator.
+     * @return - the think time.
+     */
+    public static ReactionTime create(Env env, Random random) {
+        Distribution distribution = Distribution.forName(env.config.aiReactionDistribution);
+        if (distribution == null) {
+            env.logger.severe("unknown AI reaction distribution " + env.config.aiReactionDistribution + ", using fixed instead.");
+            distribution = Distribution.FIXED;
+        }
+        return new ReactionTime(distribution, env.config.aiReactionMillis, env.config.aiReactionSpreadMillis, random);
+    }
+
+    /**
+     * Draws the next think time.
+     *
+     * @return - the think time in nanoseconds (not negative).
+     */
+    public long nextNanos() {
+        double millis;
+        switch (distribution) {
+            case UNIFORM:
+                millis = meanMillis + spreadMillis * (2 * random.nextDouble() - 1);
+                break;
+            case EXPONENTIAL:
+                millis = -meanMillis * Math.log(1 - random.nextDouble());
+                break;
+            case LOGNORMAL:
+                millis = meanMillis > 0 ? Math.exp(mu + sigma * random.nextGaussian()) : 0;
+                break;
+            default:
+                millis = meanMillis;
+        }
+        return (long) (Math.max(0, millis) * 1_000_000);
+    }
+}
@@ -0,0 +1,128 @@
+package bguspl.set.ex;
+
+import bguspl.set.SetCatalogue;
+import bguspl.set.Util;
+
+/**
+ * This class keeps track of the number of legal sets among the cards which are still in the game (in the deck or
+ * on the table), updated as cards leave the game.
+ */
+public class SetsInPlay {
+
+    /**
+     * The utilities used to find the sets.
+     */
+    private final Util util;
+
+    /**
+     * The catalogue of all legal sets of the deck (null if none).
+     */
+    private final SetCatalogue catalogue;
+
+    /**
+     * The card ids still in the game (only the first size entries are used).
+     */
+    private final int[] cards;
+
+    /**
+     * Mapping between a card and its index in cards (-1 if it left the game).
+     */
+    private final int[] cardToIndex;
+
+    /**
+     * The number of cards still in the game.
+     */
+    private int size;
+
+    /**
+     * The number of legal sets among the cards still in the game (-1 if not counted yet).
+     */
+    private int sets;
+
+    /**
+     * The class constructor.
+     *
+     * @param util      - the utilities used to find the sets.
+     * @param catalogue - the catalogue of all legal sets of the deck (null if none).
+     * @param deckSize  - the number of cards the game starts with (card ids 0 to deckSize - 1).
+     */
+    public SetsInPlay(Util util, SetCatalogue catalogue, int deckSize) {
+        this.util = util;
+        this.catalogue = catalogue;
+        this.cards = new int[deckSize];
+        this.cardToIndex = new int[deckSize];
+        for(int i = 0; i < deckSize; i++) {
+            cards[i] = i;
+            cardToIndex[i] = i;
+        }
+        this.size = deckSize;
+        this.sets = -1;
+    }
+
+    /**
+     * Removes a card from the game, along with every set it is part of.
+     *
+     * @param card - the card id leaving the game.
+     *
+     * @post - the card is no longer counted and the number of sets is decreased by the sets it was part of.
+     */
+    public synchronized void remove(int card) {
+        int index = cardToIndex[card];
+        if(index < 0)
+            return;
+
+        // move the last card into the removed card's place
+        int last = cards[--size];
+        cards[index] = last;
+        cardToIndex[last] = index;
+        cardToIndex[card] = -1;
+
+        if(sets > 0)
+            sets -= countSetsWith(card);
+    }
+
+    /**
+     * Returns the number of legal sets among the cards still in the game (counted on first use).
+     *
+     * @return - the number of sets left in the game.
+     */
+    public synchronized int count() {
+        if(sets < 0) {
+            if(catalogue != null && size == cards.length)
+                sets = catalogue.count();
+            else
+                sets = util.countSets(cards, size);
+        }
+        return sets;
+    }
+
+    /**
+     * Counts the legal sets a card (which just left the game) formed with the cards still in the game.
+     */
+    private int countSetsWith(int card) {
+        if(catalogue == null)
+            return util.countSetsWith(card, cards, size);
+
+        int found = 0;
+        for(int i = 0; i < catalogue.countWith(card); i++) {
+            int set = catalogue.setWith(card, i);
+            boolean inPlay = true;
+            for(int position = 0; inPlay && position < catalogue.setSize(); position++) {
+                int member = catalogue.card(set, position);
+                inPlay = member == card || cardToIndex[member] >= 0;
+            }
+            if(inPlay)
+                found++;
+        }
+        return found;
+    }
+
+    /**
+     * Checks if there is at least one legal set left in the game.
+     *
+     * @return - true iff there is a legal set among the cards still in the game.
+     */
+    public boolean hasSets() {
+        return count() > 0;
+    }
+}
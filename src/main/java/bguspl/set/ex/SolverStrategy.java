@@ -0,0 +1,56 @@
+package bguspl.set.ex;
+
+import java.util.List;
+import java.util.Random;
+
+import bguspl.set.Util;
+
+/**
+ * An AI that finds the sets on the board itself with the set engine and claims one of them at random, so all of its
+ * claims are valid (unless the cards change before the dealer checks them).
+ */
+public class SolverStrategy implements AiStrategy {
+
+    private final Util util;
+    private final Random random;
+
+    /**
+     * The cards on the board and their slots (reused between moves).
+     */
+    private final int[] cards;
+    private final int[] slots;
+
+    /**
+     * The class constructor.
+     *
+     * @param util      - the set engine.
+     * @param random    - the AI's random generator.
+     * @param tableSize - the number of slots on the table.
+     */
+    public SolverStrategy(Util util, Random random, int tableSize) {
+        this.util = util;
+        this.random = random;
+        this.cards = new int[tableSize];
+        this.slots = new int[tableSize];
+    }
+
+    @Override
+    public boolean chooseMove(BoardSnapshot board, int[] move) {
+        int count = 0;
+        for (int slot = 0; slot < board.slots(); slot++)
+            if (board.cardAt(slot) != Table.NONE) {
+                cards[count] = board.cardAt(slot);
+                slots[count++] = slot;
+            }
+        List<int[]> sets = util.findSets(cards, count, Integer.MAX_VALUE);
+        if (sets.isEmpty())
+            return false;
+
+        int[] set = sets.get(random.nextInt(sets.size()));
+        for (int i = 0; i < move.length; i++)
+            for (int j = 0; j < count; j++)
+                if (cards[j] == set[i])
+                    move[i] = slots[j];
+        return true;
+    }
+}
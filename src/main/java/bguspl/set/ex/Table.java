@@ -1,11 +1,14 @@
 package bguspl.set.ex;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import bguspl.set.Env;
 
@@ -22,26 +25,97 @@ public class Table {
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * The value of a slotToCard entry with no card, or a cardToSlot entry with no slot.
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    public static final int NONE = -1;
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * Mapping between a slot and the card placed in it (NONE if none).
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
+    protected final int[] slotToCard; // card per slot (if any)
 
-    //our fields:
-    protected final Vector<Vector<Integer>> placedTokens;
+    /**
+     * Mapping between a card and the slot it is in (NONE if none).
+     */
+    protected final int[] cardToSlot; // slot per card (if any)
+
+    /**
+     * The tokens of every player as a bitmask of slots: the tokens of player p are in the words
+     * [p * tokenWords, (p + 1) * tokenWords), bit s % 64 of word s / 64 is set iff the player has a token on slot s.
+     * A bit is only changed under the lock of its slot, but the slots of a word belong to different locks, so every
+     * change is a single atomic read-modify-write of the word. Reads need no lock.
+     */
+    protected final AtomicLongArray placedTokens;
+
+    /**
+     * The number of words in the bitmask of each player.
+     */
+    private final int tokenWords;
+
+    /**
+     * The players with a token on every slot as a bitmask of players: the players on slot s are in the words
+     * [s * playerWords, (s + 1) * playerWords). Guarded by the lock of the slot.
+     */
+    private final long[] slotToPlayers;
+
+    /**
+     * The number of words in the bitmask of each slot.
+     */
+    private final int playerWords;
+
+    /**
+     * The maximal number of slot locks, slots share a lock beyond it.
+     */
+    private static final int MAX_SLOT_LOCKS = 64;
+
+    /**
+     * The locks guarding the tokens placed on each slot, slot s is guarded by slotLocks[s % slotLocks.length].
+     */
+    private final ReentrantLock[] slotLocks;
+
+    /**
+     * The legal sets currently on the table.
+     */
+    private final List<int[]> setsOnTable;
+
+    /**
+     * Mapping between a legal set on the table (by identity) and its index in setsOnTable.
+     */
+    private final IdentityHashMap<int[], Integer> setPositions;
+
+    /**
+     * Mapping between a card and the legal sets on the table it is part of (empty if none).
+     */
+    private final List<List<int[]>> cardToSets;
+
+    /**
+     * A buffer for the cards on the table, reused whenever a card is placed.
+     */
+    private final int[] cardsOnTable;
+
+    /**
+     * The latest snapshot of the cards on the table, replaced (never modified) after every change of the cards.
+     */
+    private volatile BoardSnapshot snapshot;
+
+    /**
+     * Mapping between a slot and the board epoch in which its card was last placed or removed.
+     */
+    private final long[] slotEpochs;
+
+    /**
+     * The slots without cards, updated as cards are placed and removed (by the dealer thread).
+     */
+    private final IndexedIntSet emptySlots;
     
     /**
      * Constructor for testing.
      *
      * @param env        - the game environment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if none).
+     * @param slotToCard - mapping between a slot and the card placed in it (NONE if none).
+     * @param cardToSlot - mapping between a card and the slot it is in (NONE if none).
      */
-    public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
+    public Table(Env env, int[] slotToCard, int[] cardToSlot) {
 
         this.env = env;
         this.slotToCard = slotToCard;
@@ -49,10 +123,34 @@ public class Table {
         
         
         
-        this.placedTokens = new Vector<Vector<Integer>>();
-        for(int i = 0; i < env.config.players; i++)
-        	placedTokens.add(new Vector<Integer>());
-        
+        this.tokenWords = (slotToCard.length + 63) >>> 6;
+        this.placedTokens = new AtomicLongArray(env.config.players * tokenWords);
+        this.playerWords = (env.config.players + 63) >>> 6;
+        this.slotToPlayers = new long[slotToCard.length * playerWords];
+        this.slotLocks = new ReentrantLock[Math.max(1, Math.min(slotToCard.length, MAX_SLOT_LOCKS))];
+        for(int i = 0; i < slotLocks.length; i++)
+        	slotLocks[i] = new ReentrantLock();
+
+        this.setsOnTable = new ArrayList<int[]>();
+        this.setPositions = new IdentityHashMap<int[], Integer>();
+        this.cardsOnTable = new int[slotToCard.length];
+        this.cardToSets = new ArrayList<List<int[]>>(cardToSlot.length);
+        for(int i = 0; i < cardToSlot.length; i++)
+        	cardToSets.add(new ArrayList<int[]>());
+
+        this.slotEpochs = new long[slotToCard.length];
+        this.emptySlots = new IndexedIntSet(slotToCard.length);
+        for(int i = 0; i < slotToCard.length; i++)
+        	if(slotToCard[i] == NONE)
+        		emptySlots.add(i);
+        int length = 0;
+        for(int card : slotToCard)
+        	if(card != NONE)
+        		cardsOnTable[length++] = card;
+        if(length > 0) //index the cards the table was created with
+        	for(int[] set : env.util.findSets(cardsOnTable, length, Integer.MAX_VALUE))
+        		indexSet(set);
+        this.snapshot = new BoardSnapshot(0, slotToCard.clone(), getSets());
     }
 
     /**
@@ -62,15 +160,20 @@ public class Table {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, emptyMapping(env.config.tableSize), emptyMapping(env.config.deckSize));
+    }
+
+    private static int[] emptyMapping(int size) {
+        int[] mapping = new int[size];
+        Arrays.fill(mapping, NONE);
+        return mapping;
     }
 
     /**
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        snapshot.sets().forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
             List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
@@ -85,12 +188,52 @@ public class Table {
      */
     public int countCards() {
         int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
+        for (int card : slotToCard)
+            if (card != NONE)
                 ++cards;
         return cards;
     }
 
+    /**
+     * Returns the card placed in a slot.
+     *
+     * @param slot - the slot.
+     * @return - the card id in the slot, or NONE if the slot is empty.
+     */
+    public int cardAt(int slot) {
+        return slotToCard[slot];
+    }
+
+    /**
+     * Returns the slot a card is placed in.
+     *
+     * @param card - the card id.
+     * @return - the slot of the card, or NONE if the card is not on the table.
+     */
+    public int slotOf(int card) {
+        return cardToSlot[card];
+    }
+
+    /**
+     * Performs an action for each card on the table, in slot order.
+     *
+     * @param action - the action to perform on each card id.
+     */
+    public void forEachCard(IntConsumer action) {
+        for (int card : slotToCard)
+            if (card != NONE)
+                action.accept(card);
+    }
+
+    /**
+     * Returns the cards on the table, in slot order.
+     *
+     * @return - a stream of the card ids on the table.
+     */
+    public IntStream cards() {
+        return Arrays.stream(slotToCard).filter(card -> card != NONE);
+    }
+
     /**
      * Places a card on the table in a grid slot.
      * @param card - the card id to place in the slot.
@@ -99,72 +242,384 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+        delay(1);
 
         cardToSlot[card] = slot;
         slotToCard[slot] = card;
+        slotEpochs[slot] = snapshot.epoch + 1;
+        emptySlots.remove(slot);
+        addSetsOf(card);
+        publish();
 
         env.ui.placeCard(card, slot);
     }
 
+    /**
+     * Places cards on the table in grid slots, with one delay and one ui update for all of them.
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which the cards should be placed, slots[i] is the slot of cards[i].
+     *
+     * @post - the cards placed are on the table, in the assigned slots.
+     */
+    public void placeCards(int[] cards, int[] slots) {
+    	placeCards(cards, slots, cards.length);
+    }
+
+    /**
+     * Places the first count cards on the table in grid slots, with one delay and one ui update for all of them.
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which the cards should be placed, slots[i] is the slot of cards[i].
+     * @param count - the number of cards to place.
+     *
+     * @post - the cards placed are on the table, in the assigned slots.
+     */
+    public void placeCards(int[] cards, int[] slots, int count) {
+    	if(count == 0)
+    		return;
+    	delay(count);
+
+    	for(int i = 0; i < count; i++) {
+    		cardToSlot[cards[i]] = slots[i];
+    		slotToCard[slots[i]] = cards[i];
+    		slotEpochs[slots[i]] = snapshot.epoch + 1;
+    		emptySlots.remove(slots[i]);
+    		addSetsOf(cards[i]);
+    	}
+    	publish();
+
+    	env.ui.placeCards(cards, slots, count);
+    }
+
     /**
      * Removes a card from a grid slot on the table.
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
+        delay(1);
+
+        if(clearSlot(slot, true)) {
+        	publish();
+        	env.ui.removeCard(slot);
+        }
+    }
+
+    /**
+     * Removes cards from grid slots on the table, with one delay and one ui update for all of them.
+     * @param slots - the slots from which to remove the cards.
+     */
+    public void removeCards(int[] slots) {
+    	removeCards(slots, slots.length);
+    }
+
+    /**
+     * Removes cards from the first count grid slots, with one delay and one ui update for all of them.
+     * @param slots - the slots from which to remove the cards.
+     * @param count - the number of slots.
+     */
+    public void removeCards(int[] slots, int count) {
+    	if(count == 0)
+    		return;
+    	delay(count);
+
+    	for(int i = 0; i < count; i++)
+    		clearSlot(slots[i], false);
+    	publish();
+
+    	env.ui.removeCards(slots, count);
+    }
+
+    /**
+     * Sleeps for the table delay of placing/removing cards.
+     * @param cards - the number of cards placed/removed together.
+     */
+    private void delay(int cards) {
         try {
-            Thread.sleep(env.config.tableDelayMillis);
+            Thread.sleep(env.config.tableDelayPerCard ? env.config.tableDelayMillis * cards : env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {}
+    }
 
-        
-        
-        Integer removedCard = slotToCard[slot]; 
-        if(removedCard != null) {
-	        for(int i = 0; i < env.config.players; i++)
-	        	removeToken(i, slot);
-
-	        cardToSlot[removedCard] = null;
-	        slotToCard[slot] = null;
-	        env.ui.removeCard(slot);
+    /**
+     * Removes the card and the tokens on it from a slot, without updating the card in the ui.
+     * @param slot         - the slot from which to remove the card.
+     * @param notifyTokens - whether to remove each of the removed tokens from the ui.
+     * @return             - true iff there was a card in the slot.
+     */
+    private boolean clearSlot(int slot, boolean notifyTokens) {
+        int removedCard = slotToCard[slot];
+        if(removedCard == NONE)
+        	return false;
+
+        ReentrantLock lock = lockOf(slot);
+        lock.lock();
+        try { //only the players with a token on the slot are touched
+        	for(int word = 0; word < playerWords; word++) {
+        		long players = slotToPlayers[slot * playerWords + word];
+        		while(players != 0) {
+        			int player = (word << 6) + Long.numberOfTrailingZeros(players);
+        			players &= players - 1;
+        			if(clearTokenBit(player, slot) && notifyTokens)
+        				env.ui.removeToken(player, slot);
+        		}
+        		slotToPlayers[slot * playerWords + word] = 0;
+        	}
+        	cardToSlot[removedCard] = NONE;
+        	slotToCard[slot] = NONE;
+        	slotEpochs[slot] = snapshot.epoch + 1;
+        }
+        finally {
+        	lock.unlock();
         }
+        emptySlots.add(slot);
+
+        removeSetsOf(removedCard);
+        return true;
+    }
+
+    /**
+     * Returns the lock guarding the tokens placed on a slot.
+     *
+     * @param slot - the slot.
+     * @return - the lock of the slot's stripe.
+     */
+    private ReentrantLock lockOf(int slot) {
+    	return slotLocks[slot % slotLocks.length];
+    }
+
+    /**
+     * Publishes a snapshot of the cards on the table in the next board epoch.
+     * Note: the cards are only changed by the dealer thread, so snapshots are published by a single writer.
+     */
+    private void publish() {
+    	snapshot = new BoardSnapshot(snapshot.epoch + 1, slotToCard.clone(), getSets());
+    }
+
+    /**
+     * Returns the current board epoch, incremented every time cards are placed on or removed from the table.
+     *
+     * @return - the epoch of the latest snapshot.
+     */
+    public long epoch() {
+    	return snapshot.epoch;
+    }
+
+    /**
+     * Returns the latest snapshot of the cards on the table, without locking.
+     *
+     * @return - an immutable snapshot of the cards and the legal sets on the table.
+     */
+    public BoardSnapshot snapshot() {
+    	return snapshot;
+    }
+
+    /**
+     * Checks that none of the given slots changed since a board epoch.
+     *
+     * @param epoch - the board epoch.
+     * @param slots - the slots.
+     * @return - true iff the cards in all the slots are the ones they were in the epoch.
+     */
+    public boolean isCurrent(long epoch, int[] slots) {
+    	if(epoch == snapshot.epoch)
+    		return true;
+    	for(int slot : slots)
+    		if(slotEpochs[slot] > epoch)
+    			return false;
+    	return true;
+    }
+
+    /**
+     * Adds to the index all the legal sets the card forms with the other cards on the table.
+     *
+     * @param card - a card which was just placed on the table.
+     */
+    private void addSetsOf(int card) {
+    	List<int[]> newSets;
+    	if(env.catalogue != null) { //keep the catalogue's sets of the card whose other cards are on the table
+    		newSets = new ArrayList<int[]>();
+    		for(int i = 0; i < env.catalogue.countWith(card); i++) {
+    			int set = env.catalogue.setWith(card, i);
+    			boolean onTable = true;
+    			for(int position = 0; onTable && position < env.catalogue.setSize(); position++)
+    				onTable = cardToSlot[env.catalogue.card(set, position)] != NONE;
+    			if(onTable)
+    				newSets.add(env.catalogue.set(set));
+    		}
+    	}
+    	else {
+    		int length = 0;
+    		for(int other : slotToCard)
+    			if(other != NONE)
+    				cardsOnTable[length++] = other;
+    		newSets = env.util.findSetsWith(card, cardsOnTable, length, Integer.MAX_VALUE);
+    	}
+    	synchronized(setsOnTable) {
+    		for(int[] set : newSets)
+    			indexSet(set);
+    	}
+    }
+
+    /**
+     * Adds a legal set to the index, the caller holds the setsOnTable lock.
+     *
+     * @param set - the (sorted) card ids of the set.
+     */
+    private void indexSet(int[] set) {
+    	setPositions.put(set, setsOnTable.size());
+    	setsOnTable.add(set);
+    	for(int member : set)
+    		cardToSets.get(member).add(set);
+    }
+
+    /**
+     * Removes from the index all the legal sets the card is part of.
+     *
+     * @param card - a card which is about to be removed from the table.
+     */
+    private void removeSetsOf(int card) {
+    	synchronized(setsOnTable) {
+    		List<int[]> removedSets = cardToSets.get(card);
+    		for(int[] set : removedSets) {
+    			int position = setPositions.remove(set); //move the last set into the removed set's index
+    			int[] last = setsOnTable.remove(setsOnTable.size() - 1);
+    			if(last != set) {
+    				setsOnTable.set(position, last);
+    				setPositions.put(last, position);
+    			}
+    			for(int member : set)
+    				if(member != card)
+    					cardToSets.get(member).remove(set);
+    		}
+    		removedSets.clear();
+    	}
+    }
+
+    /**
+     * Checks if there is at least one legal set on the table.
+     *
+     * @return - true iff there is a legal set on the table.
+     */
+    public boolean hasSets() {
+    	synchronized(setsOnTable) {
+    		return !setsOnTable.isEmpty();
+    	}
+    }
+
+    /**
+     * Returns all the legal sets currently on the table.
+     *
+     * @return - a copy of the list of sets, each one contains the (sorted) card ids of a legal set.
+     */
+    public List<int[]> getSets() {
+    	synchronized(setsOnTable) {
+    		return new ArrayList<int[]>(setsOnTable);
+    	}
+    }
+
+    /**
+     * Returns the legal sets on the table a card is part of.
+     *
+     * @param card - the card id.
+     * @return - a copy of the list of sets containing the card.
+     */
+    public List<int[]> getSetsOf(int card) {
+    	synchronized(setsOnTable) {
+    		return new ArrayList<int[]>(cardToSets.get(card));
+    	}
+    }
+
+    /**
+     * Checks if the given cards form one of the legal sets currently on the table.
+     *
+     * @param cards - the card ids (in any order).
+     * @return - true iff the cards are a legal set on the table.
+     */
+    public boolean isSet(int[] cards) {
+    	if(cards.length == 0)
+    		return false;
+    	int[] sorted = cards.clone();
+    	Arrays.sort(sorted);
+    	synchronized(setsOnTable) {
+    		for(int[] set : cardToSets.get(sorted[0]))
+    			if(Arrays.equals(set, sorted))
+    				return true;
+    	}
+    	return false;
     }
 
     /**
-     * Returns player's tokens by ID
+     * Copies player's tokens by ID
+     *
+     * @param player   - the player the tokens belong to
+     * @param slots    - an array to copy the slots with the player's tokens into (in slot order, up to its length)
+     * @return - the number of slots copied
+     */
+    public int getPlayerTokens(int player, int[] slots) {
+    	int count = 0;
+    	for(int word = 0; word < tokenWords && count < slots.length; word++) {
+    		long mask = placedTokens.get(player * tokenWords + word);
+    		while(mask != 0 && count < slots.length) {
+    			slots[count++] = (word << 6) + Long.numberOfTrailingZeros(mask);
+    			mask &= mask - 1;
+    		}
+    	}
+    	return count;
+    }
+
+    /**
+     * Counts player's tokens by ID
+     *
+     * @param player   - the player the tokens belong to
+     * @return - the number of tokens the player placed
+     */
+    public int countTokens(int player) {
+    	int count = 0;
+    	for(int word = 0; word < tokenWords; word++)
+    		count += Long.bitCount(placedTokens.get(player * tokenWords + word));
+    	return count;
+    }
+
+    /**
+     * Checks if a player has a token on a slot
      *
      * @param player   - the player the token belongs to
-     * @return - List of slots which the player puts token on
+     * @param slot     - the slot
+     * @return - true iff the player has a token on the slot
      */
-    public List<Integer> getPlayerTokens(int player){
-    	return placedTokens.get(player);
+    public boolean hasToken(int player, int slot) {
+    	return (placedTokens.get(player * tokenWords + (slot >>> 6)) & (1L << slot)) != 0;
     }
     
     /**
-     * Returns slots which have cards on
+     * Copies the cards on the table, in slot order
      *
-     * @return - Linked list of slots which have cards on
+     * @param cards - an array of at least table size entries to copy the card ids into
+     * @return - the number of cards copied
      */
-    public List<Integer> getCardsOnTable() {
-    	List<Integer> output = new LinkedList<Integer>();
-        for (Integer card : slotToCard)
-            if (card != null)
-            	output.add(card);
-        return output;
+    public int getCardsOnTable(int[] cards) {
+    	int count = 0;
+        for (int card : slotToCard)
+            if (card != NONE)
+            	cards[count++] = card;
+        return count;
     }
     
     /**
-     * Returns slots without cards
+     * Copies the slots without cards (in no particular order), without scanning the table
+     *
+     * @param slots - an array of at least table size entries to copy the slots into
+     * @return - the number of slots copied
+     */
+    public int getEmptySlots(int[] slots) {
+    	return emptySlots.copyTo(slots);
+    }
+
+    /**
+     * Count the number of slots without cards.
      *
-     * @return - Linked list of slots without cards
+     * @return - the number of empty slots.
      */
-    public List<Integer> getEmptySlots() {
-    	List<Integer> output = new LinkedList<Integer>();
-        for (int i = 0; i<slotToCard.length; i++)
-            if (slotToCard[i] == null)
-            	output.add(i);
-        return output;
+    public int countEmptySlots() {
+    	return emptySlots.size();
     }
     
     /**
@@ -176,11 +631,22 @@ public class Table {
      * @post - the player has the slot in placedTokens
      * @post - the player's name appears on the slot in the ui
      */
-    public synchronized void placeToken(int player, int slot) {
-    	if(slotToCard[slot] != null && placedTokens.get(player).size() < 3) {
-	    	placedTokens.get(player).add(slot);
+    public void placeToken(int player, int slot) {
+    	int index = player * tokenWords + (slot >>> 6);
+    	long bit = 1L << slot;
+    	ReentrantLock lock = lockOf(slot);
+    	lock.lock();
+    	try {
+	    	if(slotToCard[slot] == NONE || countTokens(player) >= env.config.featureSize)
+	    		return;
+	    	if((placedTokens.getAndAccumulate(index, bit, (tokens, set) -> tokens | set) & bit) != 0)
+	    		return;
+	    	slotToPlayers[slot * playerWords + (player >>> 6)] |= 1L << player;
 	    	env.ui.placeToken(player, slot);
     	}
+    	finally {
+    		lock.unlock();
+    	}
     }
 
     /**
@@ -192,14 +658,29 @@ public class Table {
      * @post - player doesn't have a token on the slot
      * @post - the player's name doesn't appear on the slot in the ui
      */
-    public synchronized boolean removeToken(int player, int slot) {
-    	Vector<Integer> currPlayerVector = placedTokens.get(player);
-    	boolean removed = currPlayerVector.remove((Integer)slot);
-
-    	if(removed)
+    public boolean removeToken(int player, int slot) {
+    	ReentrantLock lock = lockOf(slot);
+    	lock.lock();
+    	try {
+    		if(!clearTokenBit(player, slot))
+    			return false;
+    		slotToPlayers[slot * playerWords + (player >>> 6)] &= ~(1L << player);
     		env.ui.removeToken(player, slot);
-    	
+    		return true;
+    	}
+    	finally {
+    		lock.unlock();
+    	}
+    }
 
-        return removed;
+    /**
+     * Clears the bit of a slot in a player's tokens (called under the lock of the slot).
+     * @param player - the player the token belongs to.
+     * @param slot   - the slot of the token.
+     * @return       - true iff the bit was set and this call cleared it.
+     */
+    private boolean clearTokenBit(int player, int slot) {
+    	long bit = 1L << slot;
+    	return (placedTokens.getAndAccumulate(player * tokenWords + (slot >>> 6), ~bit, (tokens, keep) -> tokens & keep) & bit) != 0;
     }
 }
@@ -0,0 +1,79 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetCatalogueTest {
+
+    @TempDir
+    Path directory;
+
+    Config config;
+    Util util;
+    MockLogger logger;
+
+    @BeforeEach
+    void setUp() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        logger = new MockLogger();
+        config = new Config(logger, properties);
+        util = new UtilImpl(config);
+    }
+
+    @Test
+    void load_GeneratesAllSets() throws IOException {
+
+        SetCatalogue catalogue = SetCatalogue.load(config, util, directory, logger);
+        assertEquals(1080, catalogue.count());
+        assertEquals(40, catalogue.countWith(0));
+        assertTrue(catalogue.isSet(new int[]{2, 0, 1}));
+        assertTrue(catalogue.isSet(new int[]{0, 40, 80}));
+        assertFalse(catalogue.isSet(new int[]{0, 1, 3}));
+        for (int[] set : catalogue.setsWith(5))
+            assertTrue(util.testSet(set));
+    }
+
+    @Test
+    void load_ReusesStoredFile() throws IOException {
+
+        SetCatalogue generated = SetCatalogue.load(config, util, directory, logger);
+        Path file = directory.resolve("sets-4-3.bin");
+        long modified = Files.getLastModifiedTime(file).toMillis();
+
+        SetCatalogue loaded = SetCatalogue.load(config, util, directory, logger);
+        assertEquals(modified, Files.getLastModifiedTime(file).toMillis());
+        assertEquals(generated.count(), loaded.count());
+        List<int[]> sets = generated.setsWith(7);
+        for (int i = 0; i < sets.size(); ++i)
+            assertArrayEquals(sets.get(i), loaded.setsWith(7).get(i));
+    }
+
+    @Test
+    void load_RegeneratesInvalidFile() throws IOException {
+
+        Files.write(directory.resolve("sets-4-3.bin"), new byte[]{1, 2, 3, 4});
+        assertEquals(1080, SetCatalogue.load(config, util, directory, logger).count());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    Util util;
+    Config config;
+
+    @BeforeEach
+    void setUp() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        MockLogger logger = new MockLogger();
+        config = new Config(logger, properties);
+        util = new UtilImpl(config);
+    }
+
+    private List<Integer> fullDeck() {
+        return IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    void findSets_FullDeckHasAllSets() {
+
+        List<int[]> sets = util.findSets(fullDeck(), Integer.MAX_VALUE);
+        assertEquals(1080, sets.size());
+        for (int[] set : sets)
+            assertTrue(util.testSet(set));
+    }
+
+    @Test
+    void findSets_StopsAtCount() {
+
+        assertEquals(5, util.findSets(fullDeck(), 5).size());
+    }
+
+    @Test
+    void findSets_NoSetInDeck() {
+
+        // every pair of 0, 1, 3 and 4 is completed by one of 2, 5, 6, 7, 8 - none of which are in the deck
+        List<Integer> deck = IntStream.of(0, 1, 3, 4).boxed().collect(Collectors.toList());
+        assertEquals(0, util.findSets(deck, 1).size());
+    }
+
+    @Test
+    void iterateSets_SameAsFindSets() {
+
+        List<int[]> sets = util.findSets(fullDeck(), Integer.MAX_VALUE);
+        Iterator<int[]> iterator = util.iterateSets(fullDeck());
+        for (int[] set : sets)
+            assertArrayEquals(set, iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void containsSet_ShortCircuits() {
+
+        assertTrue(util.containsSet(fullDeck()));
+        assertFalse(util.containsSet(IntStream.of(0, 1, 3, 4).boxed().collect(Collectors.toList())));
+    }
+
+    @Test
+    void primitiveOverloads_SameAsLists() {
+
+        int[] cards = {4, 3, 1, 0, 2, 80};
+        BitSet mask = new BitSet();
+        for (int card : cards)
+            mask.set(card);
+
+        assertEquals(1, util.findSets(cards, 5, Integer.MAX_VALUE).size());
+        assertEquals(0, util.findSets(cards, 4, Integer.MAX_VALUE).size());
+        assertArrayEquals(new int[]{0, 1, 2}, util.findSets(mask, 1).get(0));
+        assertTrue(util.containsSet(mask));
+        assertFalse(util.containsSet(cards, 4));
+        assertEquals(1, util.findSetsWith(2, cards, cards.length, Integer.MAX_VALUE).size());
+        assertEquals(0, util.findSetsWith(80, mask, Integer.MAX_VALUE).size());
+        assertArrayEquals(new int[]{4, 3, 1, 0, 2, 80}, cards);
+    }
+
+    @Test
+    void testSet_LegalAndIllegal() {
+
+        assertTrue(util.testSet(new int[]{0, 1, 2}));
+        assertTrue(util.testSet(new int[]{0, 40, 80}));
+        assertFalse(util.testSet(new int[]{0, 1, 3}));
+    }
+
+    @Test
+    void testSet_LargerFeatureSize() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "2");
+        Util util = new UtilImpl(new Config(new MockLogger(), properties));
+
+        assertTrue(util.testSet(new int[]{0, 5, 10, 15}));
+        assertTrue(util.testSet(new int[]{0, 1, 2, 3}));
+        assertFalse(util.testSet(new int[]{0, 1, 2, 7}));
+        // 4 + 4 sets with one feature sameSame, plus 4! sets with both features butDifferent
+        assertEquals(32, util.findSets(IntStream.range(0, 16).boxed().collect(Collectors.toList()), Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void findSets_LargerFeatureSizeBacktracking() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "3");
+        Config config = new Config(new MockLogger(), properties);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+
+        List<int[]> sets = util.findSets(deck, Integer.MAX_VALUE);
+        assertEquals(912, sets.size());
+        for (int[] set : sets)
+            assertTrue(util.testSet(set));
+        assertEquals(57, util.findSetsWith(0, deck, Integer.MAX_VALUE).size());
+        assertEquals(1, util.findSets(deck, 1).size());
+    }
+
+    @Test
+    void findSetsParallel_SameAsSequential() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "5");
+        Config config = new Config(new MockLogger(), properties);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+
+        List<int[]> sequential = util.findSets(deck, Integer.MAX_VALUE);
+        List<int[]> parallel = util.findSetsParallel(deck, Integer.MAX_VALUE, true);
+        assertEquals(243 * 242 / 6, parallel.size());
+        for (int i = 0; i < sequential.size(); ++i)
+            assertArrayEquals(sequential.get(i), parallel.get(i));
+
+        List<int[]> firstSets = util.findSetsParallel(deck, 10, true);
+        for (int i = 0; i < firstSets.size(); ++i)
+            assertArrayEquals(sequential.get(i), firstSets.get(i));
+        assertEquals(10, util.findSetsParallel(deck, 10, false).size());
+    }
+
+    @Test
+    void defaultSearches_SameAsUtilImpl() {
+
+        // a util with only the original findSets(List, int) gets every other search from the interface defaults
+        Util minimal = new Util() {
+            public int[] cardToFeatures(int card) { return util.cardToFeatures(card); }
+            public int[][] cardsToFeatures(int[] cards) { return util.cardsToFeatures(cards); }
+            public boolean testSet(int[] cards) { return util.testSet(cards); }
+            public List<int[]> findSets(List<Integer> deck, int count) { return util.findSets(deck, count); }
+            public void spin() {}
+        };
+        int[] cards = {4, 3, 1, 0, 2, 80};
+        List<Integer> deck = IntStream.of(cards).boxed().collect(Collectors.toList());
+
+        assertEquals(util.findSets(cards, cards.length, 10).size(), minimal.findSets(cards, cards.length, 10).size());
+        assertEquals(util.findSetsParallel(deck, 10, true).size(), minimal.findSetsParallel(deck, 10, true).size());
+        assertEquals(util.findSetsWith(2, deck, 10).size(), minimal.findSetsWith(2, deck, 10).size());
+        assertEquals(0, minimal.findSetsWith(80, cards, cards.length, 10).size());
+        assertTrue(minimal.containsSet(deck));
+        assertFalse(minimal.containsSet(cards, 4));
+        assertTrue(minimal.iterateSets(deck).hasNext());
+        assertEquals(util.countSets(cards, cards.length), minimal.countSets(cards, cards.length));
+        assertEquals(util.countSetsWith(2, cards, cards.length), minimal.countSetsWith(2, cards, cards.length));
+    }
+
+    @Test
+    void countSets_SameAsFindSets() {
+
+        int[] deck = IntStream.range(0, config.deckSize).toArray();
+        assertEquals(1080, util.countSets(deck, deck.length));
+        assertEquals(util.findSets(deck, 40, Integer.MAX_VALUE).size(), util.countSets(deck, 40));
+        assertEquals(40, util.countSetsWith(0, deck, deck.length));
+        assertEquals(util.findSetsWith(7, deck, 30, Integer.MAX_VALUE).size(), util.countSetsWith(7, deck, 30));
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiStrategyTest {
+
+    Env env;
+    Table table;
+
+    @BeforeEach
+    void setUp() {
+
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        Logger logger = new OurDealerTest.MockLogger();
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, new OurDealerTest.MockUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+    }
+
+    @Test
+    void solver_ClaimsOnlyValidSets() {
+
+        // cards 0, 1, 2 are the only set among 0, 1, 2 and 3
+        table.placeCards(new int[]{3, 2, 1, 0}, new int[]{0, 1, 2, 3});
+        SolverStrategy solver = new SolverStrategy(env.util, new Random(), env.config.tableSize);
+        int[] move = new int[3];
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(solver.chooseMove(table.snapshot(), move));
+            int[] cards = new int[move.length];
+            for (int j = 0; j < move.length; ++j)
+                cards[j] = table.snapshot().cardAt(move[j]);
+            assertTrue(env.util.testSet(cards));
+        }
+
+        // every pair of 0, 1, 3 and 4 is completed by a card that is not on the table
+        table.removeCard(3);
+        table.placeCard(4, 3);
+        assertFalse(solver.chooseMove(table.snapshot(), move));
+    }
+
+    @Test
+    void hints_ClaimsAgainAfterPenalty() throws InterruptedException {
+
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("ComputerPlayers", "1");
+        properties.put("HumanPlayers", "0");
+        properties.put("PenaltyFreezeSeconds", "0.1");
+        Logger logger = new OurDealerTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new OurDealerTest.MockUserInterface(), new UtilImpl(config));
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        players[0] = new Player(env, dealer, table, 0, false);
+
+        // cards 0, 1 and 3 are not a set, and with no hints the only move is the three of them
+        table.placeCards(new int[]{0, 1, 3}, new int[]{0, 1, 2});
+        dealer.getBoardGate().open();
+        Thread playerThread = new Thread(players[0], "player_0");
+        playerThread.start();
+        awaitClaim(dealer);
+        dealer.resolveClaims();
+        assertTrue(players[0].getFreezeTime() > 0);
+
+        // the freeze scheduler is not running, so release the player by hand once the penalty is over
+        Thread.sleep(Math.max(0, players[0].getFreezeTime() - System.currentTimeMillis()) + 10);
+        players[0].unfreeze();
+        awaitClaim(dealer);
+
+        players[0].terminate();
+        playerThread.join(5000);
+        assertFalse(playerThread.isAlive());
+    }
+
+    private static void awaitClaim(Dealer dealer) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dealer.getPlayersSetsToCheck().isEmpty() && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(1, dealer.getPlayersSetsToCheck().size());
+    }
+
+    @Test
+    void reactionTime_FollowsDistribution() {
+
+        Random random = new Random(1);
+        assertEquals(250_000_000, new ReactionTime(ReactionTime.Distribution.FIXED, 250, 100, random).nextNanos());
+
+        ReactionTime uniform = new ReactionTime(ReactionTime.Distribution.UNIFORM, 250, 100, random);
+        for (int i = 0; i < 1000; ++i) {
+            long nanos = uniform.nextNanos();
+            assertTrue(nanos >= 150_000_000 && nanos <= 350_000_000);
+        }
+
+        for (ReactionTime.Distribution distribution : new ReactionTime.Distribution[]{ReactionTime.Distribution.EXPONENTIAL, ReactionTime.Distribution.LOGNORMAL}) {
+            ReactionTime reactionTime = new ReactionTime(distribution, 250, 100, random);
+            double sum = 0;
+            int draws = 100000;
+            for (int i = 0; i < draws; ++i) {
+                long nanos = reactionTime.nextNanos();
+                assertTrue(nanos >= 0);
+                sum += nanos;
+            }
+            assertEquals(250, sum / draws / 1_000_000, 10);
+        }
+        assertEquals(0, new ReactionTime(ReactionTime.Distribution.LOGNORMAL, 0, 100, random).nextNanos());
+    }
+}
@@ -0,0 +1,44 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardGateTest {
+
+    @Test
+    void awaitOpen_BlocksUntilOpened() throws InterruptedException {
+
+        BoardGate gate = new BoardGate();
+        CountDownLatch passed = new CountDownLatch(1);
+        Thread player = new Thread(() -> {
+            try {
+                gate.awaitOpen();
+                passed.countDown();
+            } catch (InterruptedException ignored) {}
+        });
+        player.start();
+
+        assertFalse(passed.await(50, TimeUnit.MILLISECONDS));
+        gate.open();
+        assertTrue(passed.await(1, TimeUnit.SECONDS));
+        player.join();
+    }
+
+    @Test
+    void awaitOpen_ReturnsWhileOpen() throws InterruptedException {
+
+        BoardGate gate = new BoardGate();
+        gate.open();
+        gate.open();
+        gate.awaitOpen();
+        assertTrue(gate.isOpen());
+
+        gate.close();
+        assertFalse(gate.isOpen());
+    }
+}
@@ -0,0 +1,126 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterface;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimPipelineTest {
+
+    Player[] players;
+    Dealer dealer;
+    Table table;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @BeforeEach
+    void setUp() {
+
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PlayerKeys1", "81,87,69,82");
+        properties.put("PlayerKeys2", "85,73,79,80");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+
+        Env env = new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+        players = new Player[config.players];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, true);
+
+        // no three of these cards form a set, so every claim is penalized and the board stays the same
+        table.placeCards(new int[]{0, 1, 3, 4}, new int[]{0, 1, 2, 3});
+    }
+
+    private void pressSlots(Player player) throws InterruptedException {
+        for (int slot = 0; slot < 3; ++slot) {
+            player.keyPressed(slot);
+            player.handleAction(player.getWaitingActions().take());
+        }
+    }
+
+    private void claimAndResolve(Player player) throws InterruptedException {
+        pressSlots(player); // places the tokens and claims a set
+        dealer.resolveClaims();
+        pressSlots(player); // removes the tokens
+    }
+
+    @Test
+    void claimIsResolved() throws InterruptedException {
+
+        pressSlots(players[0]);
+        assertEquals(true, players[0].isCheckingSet());
+        assertEquals(1, dealer.getPlayersSetsToCheck().size());
+
+        dealer.resolveClaims();
+        assertEquals(false, players[0].isCheckingSet());
+        assertTrue(players[0].getFreezeTime() > System.currentTimeMillis());
+        assertEquals(0, players[0].getScore());
+    }
+
+    @Test
+    void claimPipelineDoesNotAllocate() throws InterruptedException {
+
+        for (int i = 0; i < 10000; ++i) // warm up, and let the reused structures reach their final size
+            claimAndResolve(players[i % players.length]);
+
+        int claims = 10000;
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < claims; ++i)
+            claimAndResolve(players[i % players.length]);
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+
+        // the smallest object takes 16 bytes, so less than a byte per claim means claims do not allocate (the
+        // slack is for rare allocations of the runtime itself)
+        assertTrue(allocated < claims, allocated + " bytes allocated by " + claims + " claims");
+    }
+
+    static class MockUserInterface implements UserInterface {
+        @Override
+        public void dispose() {}
+        @Override
+        public void placeCard(int card, int slot) {}
+        @Override
+        public void removeCard(int slot) {}
+        @Override
+        public void setCountdown(long millies, boolean warn) {}
+        @Override
+        public void setElapsed(long millies) {}
+        @Override
+        public void setScore(int player, int score) {}
+        @Override
+        public void setFreeze(int player, long millies) {}
+        @Override
+        public void placeToken(int player, int slot) {}
+        @Override
+        public void removeTokens() {}
+        @Override
+        public void removeTokens(int slot) {}
+        @Override
+        public void removeToken(int player, int slot) {}
+        @Override
+        public void announceWinner(int[] players) {}
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimQueueTest {
+
+    @Test
+    void offerAndPoll_FifoUntilFull() {
+
+        ClaimQueue queue = new ClaimQueue(3, ClaimQueue.WaitStrategy.PARK);
+        Claim[] claims = new Claim[4];
+        for (int round = 0; round < 3; ++round) {
+            for (int i = 0; i < claims.length; ++i) {
+                claims[i] = new Claim(i, new int[0]);
+                assertTrue(queue.offer(claims[i]));
+            }
+            assertFalse(queue.offer(new Claim(4, new int[0])));
+            assertEquals(4, queue.size());
+            for (Claim claim : claims)
+                assertSame(claim, queue.poll());
+            assertNull(queue.poll());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    void poll_TimesOutWhenEmpty() throws InterruptedException {
+
+        for (ClaimQueue.WaitStrategy strategy : ClaimQueue.WaitStrategy.values())
+            assertNull(new ClaimQueue(2, strategy).poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void poll_ReceivesEveryClaimOfConcurrentProducers() throws InterruptedException {
+
+        int producers = 4;
+        int claimsEach = 1000;
+        for (ClaimQueue.WaitStrategy strategy : ClaimQueue.WaitStrategy.values()) {
+            ClaimQueue queue = new ClaimQueue(producers, strategy);
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; ++p) {
+                Claim claim = new Claim(p, new int[0]);
+                Thread producer = new Thread(() -> {
+                    for (int i = 0; i < claimsEach; ++i)
+                        while (!queue.offer(claim))
+                            Thread.yield();
+                });
+                threads.add(producer);
+                producer.start();
+            }
+
+            int[] received = new int[producers];
+            for (int i = 0; i < producers * claimsEach; ++i) {
+                Claim claim = queue.poll(5, TimeUnit.SECONDS);
+                received[claim.player]++;
+            }
+            for (Thread producer : threads)
+                producer.join();
+            for (int count : received)
+                assertEquals(claimsEach, count);
+            assertNull(queue.poll());
+        }
+    }
+}
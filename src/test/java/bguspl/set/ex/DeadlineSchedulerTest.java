@@ -0,0 +1,42 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class DeadlineSchedulerTest {
+
+    @Test
+    void pollDue_InDeadlineOrder() {
+
+        DeadlineScheduler scheduler = new DeadlineScheduler(5);
+        assertEquals(DeadlineScheduler.NEVER, scheduler.nextDeadline());
+
+        scheduler.schedule(0, 50);
+        scheduler.schedule(1, 10);
+        scheduler.schedule(2, 30);
+        scheduler.schedule(3, 20);
+        assertEquals(10, scheduler.nextDeadline());
+
+        assertEquals(1, scheduler.pollDue(25));
+        assertEquals(3, scheduler.pollDue(25));
+        assertEquals(-1, scheduler.pollDue(25));
+        assertEquals(30, scheduler.nextDeadline());
+    }
+
+    @Test
+    void schedule_ReplacesDeadlineOfKey() {
+
+        DeadlineScheduler scheduler = new DeadlineScheduler(3);
+        scheduler.schedule(0, 10);
+        scheduler.schedule(1, 20);
+        scheduler.schedule(0, 30);
+        assertEquals(20, scheduler.nextDeadline());
+
+        scheduler.cancel(1);
+        assertFalse(scheduler.isScheduled(1));
+        assertEquals(0, scheduler.pollDue(100));
+        assertEquals(-1, scheduler.pollDue(100));
+    }
+}
@@ -4,6 +4,7 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -18,6 +19,8 @@ class OurDealerTest {
     Player[] players;
     Dealer dealer;
     Table table;
+    Config config;
+    MockLogger logger;
 
 
     @BeforeEach
@@ -35,8 +38,8 @@ class OurDealerTest {
         properties.put("HumanPlayers", "2");
         properties.put("PenaltyFreezeSeconds", "3");
 
-        MockLogger logger = new MockLogger();
-        Config config = new Config(logger, properties);
+        logger = new MockLogger();
+        config = new Config(logger, properties);
         
 
         Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
@@ -60,17 +63,40 @@ class OurDealerTest {
     @Test
     void checkIfSetCardsRemoved() {
         fillAllSlots();
-        List<Integer> cardsToRemove = dealer.getCardsToRemove();
-        cardsToRemove.add(0);
-        cardsToRemove.add(1);
-        cardsToRemove.add(2);
+        dealer.markForRemoval(0);
+        dealer.markForRemoval(1);
+        dealer.markForRemoval(2);
         dealer.removeCardsFromTable();
         for (int i = 0; i < table.slotToCard.length; ++i) {
-            assertEquals(i<3 ? true : false, table.slotToCard[i] == null);
+            assertEquals(i<3 ? true : false, table.slotToCard[i] == Table.NONE);
         }
 
     }
 
+    @Test
+    void overlappingClaimsFirstValidWins() {
+        Env env = new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+        table.placeCards(new int[]{0, 1, 2, 3}, new int[]{0, 1, 2, 3});
+
+        long epoch = table.epoch();
+        dealer.getPlayersSetsToCheck().offer(new Claim(1, epoch, 2, new int[]{0, 1, 2}));
+        dealer.getPlayersSetsToCheck().offer(new Claim(2, epoch, 3, new int[]{2, 1, 0}));
+        dealer.getPlayersSetsToCheck().offer(new Claim(0, epoch, 1, new int[]{0, 1, 3}));
+        dealer.resolveClaims();
+
+        assertEquals(1, players[1].getScore());
+        assertEquals(0, players[0].getScore());
+        assertEquals(0, players[2].getScore());
+        assertEquals(true, players[0].getFreezeTime() > System.currentTimeMillis());
+        assertEquals(0, players[2].getFreezeTime());
+        assertEquals(3, dealer.getCardsToRemoveCount());
+        assertEquals(true, dealer.isRemoving(0) && !dealer.isRemoving(3));
+    }
+
     @Test
     void checkTie() {
 
@@ -81,6 +107,23 @@ class OurDealerTest {
 
     }
 
+    @Test
+    void virtualThreadsNeedJava21() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("VirtualThreads", "True");
+        Env env = new Env(logger, new Config(logger, properties), new MockUserInterface(), new MockUtil());
+        PlayerThreadFactory factory = new PlayerThreadFactory(env);
+        assertEquals(Runtime.version().feature() >= 21, factory.isVirtual());
+        assertEquals(false, dealer.getPlayerThreadFactory().isVirtual());
+
+        int[] ran = new int[1];
+        Thread thread = factory.newThread(() -> ran[0]++, "player_0");
+        assertEquals("player_0", thread.getName());
+        thread.start();
+        thread.join();
+        assertEquals(1, ran[0]);
+    }
+
 
     static class MockUserInterface implements UserInterface {
         @Override
@@ -4,14 +4,17 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 class OurPlayerTest {
 
@@ -65,6 +68,86 @@ class OurPlayerTest {
         assertEquals(false , isPlayerFreezed(0));
     }
 
+    @Test
+    void terminateDuringMultiKeyAiMove() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "3");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("ComputerPlayers", "1");
+        properties.put("HumanPlayers", "0");
+        properties.put("AiStrategy", "solver");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, new Player[1]);
+
+        // cards 0, 1, 2 are the only set on the table, so the move lifts the tokens on slots 3, 4, 5 and places 0, 1, 2
+        table.placeCards(new int[]{0, 1, 2, 3, 4, 9}, new int[]{0, 1, 2, 3, 4, 5});
+        for (int slot = 3; slot < 6; ++slot)
+            table.placeToken(0, slot);
+        CountDownLatch stalled = new CountDownLatch(1);
+        Player player = new Player(env, dealer, table, 0, false) {
+            @Override
+            protected boolean handleAction(int slot) {
+                try { stalled.await(); } // the player thread stops taking keys after the first one
+                catch (InterruptedException e) {}
+                return false;
+            }
+        };
+        dealer.getBoardGate().open();
+        Thread playerThread = new Thread(player, "player_0");
+        playerThread.start();
+
+        long deadline = System.currentTimeMillis() + 5000; // the AI is blocked on its fifth key of six
+        while (player.getWaitingActions().size() < config.featureSize && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(config.featureSize, player.getWaitingActions().size());
+        Thread.sleep(50);
+
+        player.terminate();
+        playerThread.join(5000);
+        assertFalse(playerThread.isAlive());
+    }
+
+    @Test
+    void aiClaimsAMoveItHoldsAlready() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("ComputerPlayers", "1");
+        properties.put("HumanPlayers", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, new Player[1]);
+
+        // no hints and only three cards, so the hints strategy can only choose the slots the tokens are on already
+        table.placeCards(new int[]{0, 1, 3}, new int[]{0, 1, 2});
+        for (int slot = 0; slot < 3; ++slot)
+            table.placeToken(0, slot);
+        Player player = new Player(env, dealer, table, 0, false);
+        dealer.getBoardGate().open();
+        Thread playerThread = new Thread(player, "player_0");
+        playerThread.start();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dealer.getPlayersSetsToCheck().isEmpty() && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(1, dealer.getPlayersSetsToCheck().size());
+
+        player.terminate();
+        playerThread.join(5000);
+        assertFalse(playerThread.isAlive());
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
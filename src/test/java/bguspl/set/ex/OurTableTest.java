@@ -4,9 +4,11 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
@@ -16,8 +18,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 class OurTableTest {
 
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    Config config;
+    MockLogger logger;
+    private int[] slotToCard;
+    private int[] cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -30,10 +34,12 @@ class OurTableTest {
         properties.put("TableDelaySeconds", "0");
         properties.put("PlayerKeys1", "81,87,69,82");
         properties.put("PlayerKeys2", "85,73,79,80");
-        MockLogger logger = new MockLogger();
-        Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        logger = new MockLogger();
+        config = new Config(logger, properties);
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        Arrays.fill(cardToSlot, Table.NONE);
 
         Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
@@ -57,8 +63,7 @@ class OurTableTest {
     }
 
     private boolean tokenExists(int playerid, int slot) {
-        List<Integer> thisPlayerTokens = table.getPlayerTokens(playerid);
-        return thisPlayerTokens.contains(slot);
+        return table.hasToken(playerid, slot);
     }
 
 
@@ -82,6 +87,90 @@ class OurTableTest {
         assertEquals(false, tokenExists(0,2));
     }
 
+    @Test
+    void removeCardRemovesOnlyItsTokens() {
+        fillAllSlots();
+        table.placeToken(0, 0);
+        table.placeToken(1, 0);
+        table.placeToken(1, 2);
+        table.removeCard(0);
+        assertEquals(false, tokenExists(0, 0));
+        assertEquals(false, tokenExists(1, 0));
+        assertEquals(true, tokenExists(1, 2));
+        assertEquals(1, table.countTokens(1));
+
+        table.placeToken(0, 0);
+        assertEquals(false, tokenExists(0, 0));
+    }
+
+    @Test
+    void checkIfSetsAreIndexed() {
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), new UtilImpl(config)));
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(3, 2);
+        assertEquals(false, table.hasSets());
+
+        table.placeCard(2, 3);
+        assertEquals(true, table.hasSets());
+        assertEquals(true, table.isSet(new int[]{2, 0, 1}));
+        assertEquals(false, table.isSet(new int[]{0, 1, 3}));
+        assertEquals(1, table.getSetsOf(0).size());
+        assertEquals(0, table.getSetsOf(3).size());
+
+        table.removeCard(1);
+        assertEquals(false, table.hasSets());
+        assertEquals(0, table.getSetsOf(0).size());
+    }
+
+    @Test
+    void prefilledSlotsAreIndexed() {
+        fillAllSlots();
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), new UtilImpl(config)), slotToCard, cardToSlot);
+        assertEquals(true, table.hasSets());
+        assertEquals(true, table.isSet(new int[]{1, 2, 0}));
+        assertEquals(1, table.getSetsOf(2).size());
+        assertEquals(1, table.snapshot().sets().size());
+
+        table.removeCard(0);
+        assertEquals(false, table.hasSets());
+        assertEquals(0, table.getSetsOf(1).size());
+    }
+
+    @Test
+    void epochTracksChangedSlots() {
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), new UtilImpl(config)));
+        assertEquals(0, table.epoch());
+        table.placeCards(new int[]{0, 1, 2, 3}, new int[]{0, 1, 2, 3});
+        long epoch = table.epoch();
+        BoardSnapshot snapshot = table.snapshot();
+        assertEquals(1, epoch);
+        assertEquals(1, snapshot.sets().size());
+
+        table.removeCard(3);
+        assertEquals(epoch + 1, table.epoch());
+        assertEquals(3, snapshot.cardAt(3));
+        assertEquals(Table.NONE, table.snapshot().cardAt(3));
+        assertEquals(true, table.isCurrent(epoch, new int[]{0, 1, 2}));
+        assertEquals(false, table.isCurrent(epoch, new int[]{0, 1, 3}));
+    }
+
+    @Test
+    void batchPlaceAndRemove() {
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), new UtilImpl(config)));
+        table.placeCards(new int[]{0, 1, 2, 3}, new int[]{3, 2, 1, 0});
+        assertEquals(4, table.countCards());
+        assertEquals(3, table.slotOf(0));
+        assertEquals(true, table.isSet(new int[]{0, 1, 2}));
+
+        table.placeToken(0, 3);
+        table.removeCards(new int[]{3, 1});
+        assertEquals(2, table.countCards());
+        assertEquals(Table.NONE, table.cardAt(3));
+        assertEquals(false, tokenExists(0, 3));
+        assertEquals(false, table.hasSets());
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -0,0 +1,79 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.SetCatalogue;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SetsInPlayTest {
+
+    SetsInPlay setsInPlay;
+    Config config;
+    Util util;
+    MockLogger logger;
+
+    @BeforeEach
+    void setUp() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        logger = new MockLogger();
+        config = new Config(logger, properties);
+        util = new UtilImpl(config);
+        setsInPlay = new SetsInPlay(util, null, config.deckSize);
+    }
+
+    @Test
+    void count_FullDeck() {
+
+        assertEquals(1080, setsInPlay.count());
+    }
+
+    @Test
+    void remove_CardLeavesWithItsSets() {
+
+        setsInPlay.count();
+        setsInPlay.remove(0);
+        // every card is part of (81 - 1) / 2 sets
+        assertEquals(1080 - 40, setsInPlay.count());
+
+        setsInPlay.remove(0);
+        assertEquals(1080 - 40, setsInPlay.count());
+    }
+
+    @Test
+    void remove_BeforeCounting() {
+
+        setsInPlay.remove(0);
+        assertEquals(1080 - 40, setsInPlay.count());
+    }
+
+    @Test
+    void remove_WithCatalogue(@TempDir Path directory) throws IOException {
+
+        SetsInPlay setsInPlay = new SetsInPlay(util, SetCatalogue.load(config, util, directory, logger), config.deckSize);
+        assertEquals(1080, setsInPlay.count());
+        setsInPlay.remove(0);
+        setsInPlay.remove(1);
+        // card 1 was part of 40 sets, one of which (0, 1, 2) already left with card 0
+        assertEquals(1080 - 40 - 39, setsInPlay.count());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
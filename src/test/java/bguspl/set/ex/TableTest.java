@@ -7,6 +7,8 @@ import bguspl.set.Util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
@@ -16,8 +18,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 class TableTest {
 
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private int[] slotToCard;
+    private int[] cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -32,8 +34,10 @@ class TableTest {
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        Arrays.fill(cardToSlot, Table.NONE);
 
         Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
@@ -59,8 +63,8 @@ class TableTest {
     private void placeSomeCardsAndAssert() throws InterruptedException {
         table.placeCard(8, 2);
 
-        assertEquals(8, (int) slotToCard[2]);
-        assertEquals(2, (int) cardToSlot[8]);
+        assertEquals(8, slotToCard[2]);
+        assertEquals(2, cardToSlot[8]);
     }
 
     @Test
@@ -96,6 +100,40 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void primitiveReads_SomeSlotsAreFilled() {
+
+        fillSomeSlots();
+        assertEquals(3, table.cardAt(1));
+        assertEquals(Table.NONE, table.cardAt(0));
+        assertEquals(2, table.slotOf(5));
+        assertEquals(Table.NONE, table.slotOf(4));
+
+        int[] buffer = new int[slotToCard.length];
+        assertEquals(2, table.getCardsOnTable(buffer));
+        assertEquals(3, buffer[0]);
+        assertEquals(5, buffer[1]);
+        assertEquals(8, table.cards().sum());
+
+        List<Integer> visited = new ArrayList<>();
+        table.forEachCard(visited::add);
+        assertEquals(Arrays.asList(3, 5), visited);
+    }
+
+    @Test
+    void getEmptySlots_TracksPlacedAndRemovedCards() {
+
+        table.placeCard(8, 2);
+        table.placeCard(3, 0);
+        table.removeCard(2);
+        int[] buffer = new int[slotToCard.length];
+        int count = table.getEmptySlots(buffer);
+        assertEquals(slotToCard.length - 1, count);
+        assertEquals(count, table.countEmptySlots());
+        assertEquals(false, Arrays.stream(buffer, 0, count).anyMatch(slot -> slot == 0));
+        assertEquals(true, Arrays.stream(buffer, 0, count).anyMatch(slot -> slot == 2));
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}